@@ -0,0 +1,89 @@
+package com.site.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/** Llamadas HTTP de los escenarios; cada una se registra en las stats de su endpoint. */
+final class AuthClient {
+
+    private static final Pattern ACCESS_TOKEN = Pattern.compile("\"accessToken\"\\s*:\\s*\"([^\"]+)\"");
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    private final HttpClient http;
+    private final String baseUrl;
+    final EndpointStats register = new EndpointStats("register");
+    final EndpointStats verify = new EndpointStats("verify-email");
+    final EndpointStats login = new EndpointStats("login");
+    final EndpointStats changePassword = new EndpointStats("change-password");
+
+    AuthClient(HttpClient http, String baseUrl) {
+        this.http = http;
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+    }
+
+    EndpointStats[] all() {
+        return new EndpointStats[]{register, verify, login, changePassword};
+    }
+
+    boolean register(String username, String email, String password) throws IOException, InterruptedException {
+        String json = "{\"username\":\"%s\",\"email\":\"%s\",\"password\":\"%s\"}".formatted(username, email, password);
+        return send(register, post("/auth/register", json), 200) != null;
+    }
+
+    /** El endpoint redirige (302) al frontend; no se sigue la redirección. */
+    boolean verify(String token) throws IOException, InterruptedException {
+        var req = HttpRequest.newBuilder(URI.create(baseUrl + "/auth/verify-email?token=" + token))
+                .timeout(TIMEOUT).GET().build();
+        var res = send(verify, req, 302);
+        return res != null && !res.headers().firstValue("Location").orElse("").contains("reason=");
+    }
+
+    /** Devuelve el access token o null si el login falla. */
+    String login(String usernameOrEmail, String password) throws IOException, InterruptedException {
+        String json = "{\"usernameOrEmail\":\"%s\",\"password\":\"%s\"}".formatted(usernameOrEmail, password);
+        var res = send(login, post("/auth/login", json), 200);
+        if (res == null) return null;
+        Matcher m = ACCESS_TOKEN.matcher(res.body());
+        return m.find() ? m.group(1) : null;
+    }
+
+    boolean changePassword(String accessToken, String current, String next) throws IOException, InterruptedException {
+        String json = "{\"currentPassword\":\"%s\",\"newPassword\":\"%s\"}".formatted(current, next);
+        var req = HttpRequest.newBuilder(URI.create(baseUrl + "/auth/users/me/password"))
+                .timeout(TIMEOUT)
+                .header("Content-Type", "application/json")
+                .header("Authorization", "Bearer " + accessToken)
+                .PUT(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+        return send(changePassword, req, 204) != null;
+    }
+
+    private HttpRequest post(String path, String json) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(TIMEOUT)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    /** Null si el status no es el esperado (cuenta como error). */
+    private HttpResponse<String> send(EndpointStats stats, HttpRequest req, int expectedStatus)
+            throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        try {
+            var res = http.send(req, HttpResponse.BodyHandlers.ofString());
+            boolean ok = res.statusCode() == expectedStatus;
+            stats.record(start, ok);
+            return ok ? res : null;
+        } catch (IOException e) {
+            stats.record(start, false);
+            throw e;
+        }
+    }
+}
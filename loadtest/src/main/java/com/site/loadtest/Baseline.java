@@ -0,0 +1,93 @@
+package com.site.loadtest;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+
+/**
+ * Resultados de una ejecución en formato properties ({@code login.p99_us=...}) para
+ * guardarlos junto al release y comparar la siguiente ejecución contra ellos.
+ */
+final class Baseline {
+
+    private Baseline() {}
+
+    static void write(Path file, EndpointStats[] stats, long wallNanos) throws IOException {
+        var p = new Properties();
+        for (EndpointStats s : stats) {
+            p.setProperty(s.name + ".count", Long.toString(s.count()));
+            p.setProperty(s.name + ".errors", Long.toString(s.errors()));
+            p.setProperty(s.name + ".throughput", String.format(Locale.ROOT, "%.2f", s.throughput(wallNanos)));
+            p.setProperty(s.name + ".p50_us", Long.toString(s.p50()));
+            p.setProperty(s.name + ".p99_us", Long.toString(s.p99()));
+            p.setProperty(s.name + ".p999_us", Long.toString(s.p999()));
+        }
+        if (file.getParent() != null) Files.createDirectories(file.getParent());
+        try (Writer w = Files.newBufferedWriter(file)) {
+            p.store(w, "site-loadtest");
+        }
+    }
+
+    /**
+     * Devuelve las regresiones: p99/p999 más lentos o throughput menor que la tolerancia, y sin
+     * tolerancia cualquier error más (en número o en tasa) o menos peticiones hechas. El escenario
+     * es fijo para los mismos parámetros, así que menos peticiones significa recorridos abortados.
+     */
+    static List<String> compare(Path file, EndpointStats[] stats, long wallNanos, double tolerance) throws IOException {
+        var base = new Properties();
+        try (Reader r = Files.newBufferedReader(file)) {
+            base.load(r);
+        }
+        var regressions = new ArrayList<String>();
+        for (EndpointStats s : stats) {
+            fewer(regressions, base, s.name + ".count", s.count());
+            moreErrors(regressions, base, s);
+            slower(regressions, base, s.name + ".p99_us", s.p99(), tolerance);
+            slower(regressions, base, s.name + ".p999_us", s.p999(), tolerance);
+            String key = s.name + ".throughput";
+            if (base.containsKey(key)) {
+                double before = Double.parseDouble(base.getProperty(key));
+                double now = s.throughput(wallNanos);
+                if (now < before * (1 - tolerance)) {
+                    regressions.add("%s: %.2f -> %.2f req/s".formatted(key, before, now));
+                }
+            }
+        }
+        return regressions;
+    }
+
+    private static void fewer(List<String> out, Properties base, String key, long now) {
+        if (!base.containsKey(key)) return;
+        long before = Long.parseLong(base.getProperty(key));
+        if (now < before) {
+            out.add("%s: %d -> %d peticiones".formatted(key, before, now));
+        }
+    }
+
+    private static void moreErrors(List<String> out, Properties base, EndpointStats s) {
+        String key = s.name + ".errors";
+        if (!base.containsKey(key)) return;
+        long before = Long.parseLong(base.getProperty(key));
+        long beforeCount = Long.parseLong(base.getProperty(s.name + ".count", "0"));
+        long now = s.errors();
+        // Tasa comparada en cruzado (now/count > before/beforeCount) para no dividir por cero
+        boolean higherRate = now * beforeCount > before * s.count();
+        if (now > before || higherRate) {
+            out.add("%s: %d/%d -> %d/%d".formatted(key, before, beforeCount, now, s.count()));
+        }
+    }
+
+    private static void slower(List<String> out, Properties base, String key, long now, double tolerance) {
+        if (!base.containsKey(key)) return;
+        long before = Long.parseLong(base.getProperty(key));
+        if (now > before * (1 + tolerance)) {
+            out.add("%s: %d -> %d µs".formatted(key, before, now));
+        }
+    }
+}
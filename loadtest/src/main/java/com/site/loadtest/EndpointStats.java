@@ -0,0 +1,38 @@
+package com.site.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/** Latencias (µs) y errores de un endpoint. Seguro para muchos hilos virtuales a la vez. */
+final class EndpointStats {
+
+    private static final long MAX_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    final String name;
+    private final Histogram latencies = new ConcurrentHistogram(MAX_MICROS, 3);
+    private final LongAdder errors = new LongAdder();
+
+    EndpointStats(String name) {
+        this.name = name;
+    }
+
+    void record(long startNanos, boolean ok) {
+        long micros = (System.nanoTime() - startNanos) / 1_000;
+        latencies.recordValue(Math.min(micros, MAX_MICROS));
+        if (!ok) errors.increment();
+    }
+
+    long count() { return latencies.getTotalCount(); }
+    long errors() { return errors.sum(); }
+    long p50() { return latencies.getValueAtPercentile(50); }
+    long p99() { return latencies.getValueAtPercentile(99); }
+    long p999() { return latencies.getValueAtPercentile(99.9); }
+    long max() { return latencies.getMaxValue(); }
+
+    double throughput(long wallNanos) {
+        return count() / (wallNanos / 1e9);
+    }
+}
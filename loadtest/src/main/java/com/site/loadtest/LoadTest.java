@@ -0,0 +1,141 @@
+package com.site.loadtest;
+
+import java.net.http.HttpClient;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generador de carga para los endpoints de auth.
+ *
+ * <p>Cada usuario virtual ejecuta {@code --iterations} veces el guion:
+ * register → verify-email (token leído del SMTP local) → login → N × (PUT password → login).
+ * La app debe arrancarse con el perfil {@code loadtest} para que envíe el correo a este proceso.
+ *
+ * <pre>
+ * mvn -f loadtest/pom.xml compile exec:java -Dexec.args="--users 50 --iterations 4 --out target/run.properties"
+ * mvn -f loadtest/pom.xml compile exec:java -Dexec.args="--users 50 --baseline baseline/auth.properties"
+ * </pre>
+ */
+public final class LoadTest {
+
+    private LoadTest() {}
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opts = parse(args);
+        String baseUrl = opts.getOrDefault("base-url", "http://localhost:8080");
+        int smtpPort = Integer.parseInt(opts.getOrDefault("smtp-port", "2525"));
+        int users = Integer.parseInt(opts.getOrDefault("users", "20"));
+        int iterations = Integer.parseInt(opts.getOrDefault("iterations", "3"));
+        int passwordChanges = Integer.parseInt(opts.getOrDefault("password-changes", "2"));
+        long mailTimeoutMs = Long.parseLong(opts.getOrDefault("mail-timeout-ms", "15000"));
+        double tolerance = Double.parseDouble(opts.getOrDefault("tolerance", "0.10"));
+        String runId = Long.toString(System.currentTimeMillis(), 36);
+
+        var executor = Executors.newVirtualThreadPerTaskExecutor();
+        var http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .executor(executor)
+                .build();
+        var client = new AuthClient(http, baseUrl);
+        var failedScripts = new AtomicLong();
+
+        long wallNanos;
+        try (var smtp = new SmtpStandIn(smtpPort)) {
+            System.out.printf(Locale.ROOT, "Carga contra %s: %d usuarios × %d iteraciones (SMTP en :%d)%n",
+                    baseUrl, users, iterations, smtpPort);
+            long start = System.nanoTime();
+            try (ExecutorService vus = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int u = 0; u < users; u++) {
+                    final int vu = u;
+                    vus.submit(() -> {
+                        for (int i = 0; i < iterations; i++) {
+                            String name = "lt" + runId + "u" + vu + "i" + i;
+                            try {
+                                if (!script(client, smtp, name, passwordChanges, mailTimeoutMs)) {
+                                    failedScripts.incrementAndGet();
+                                }
+                            } catch (Exception e) {
+                                failedScripts.incrementAndGet();
+                                System.err.println("[" + name + "] " + e.getMessage());
+                            }
+                        }
+                        return null;
+                    });
+                }
+            }
+            wallNanos = System.nanoTime() - start;
+        } finally {
+            executor.shutdownNow();
+        }
+
+        report(client.all(), wallNanos, failedScripts.get());
+
+        if (opts.containsKey("out")) {
+            Baseline.write(Path.of(opts.get("out")), client.all(), wallNanos);
+            System.out.println("Resultados guardados en " + opts.get("out"));
+        }
+        if (opts.containsKey("baseline")) {
+            var regressions = Baseline.compare(Path.of(opts.get("baseline")), client.all(), wallNanos, tolerance);
+            if (regressions.isEmpty()) {
+                System.out.printf(Locale.ROOT, "Sin regresiones frente a %s (tolerancia %.0f%%)%n",
+                        opts.get("baseline"), tolerance * 100);
+            } else {
+                System.out.println("REGRESIONES frente a " + opts.get("baseline") + ":");
+                regressions.forEach(r -> System.out.println("  " + r));
+                System.exit(2);
+            }
+        }
+    }
+
+    /** Un recorrido completo de un usuario nuevo. False si algún paso no devuelve lo esperado. */
+    private static boolean script(AuthClient client, SmtpStandIn smtp, String name,
+                                  int passwordChanges, long mailTimeoutMs) throws Exception {
+        String email = name + "@loadtest.local";
+        String password = "pw-" + name + "-0";
+
+        if (!client.register(name, email, password)) return false;
+        String token = smtp.awaitVerificationToken(email, mailTimeoutMs);
+        if (!client.verify(token)) return false;
+
+        String access = client.login(name, password);
+        if (access == null) return false;
+        for (int n = 1; n <= passwordChanges; n++) {
+            String next = "pw-" + name + "-" + n;
+            if (!client.changePassword(access, password, next)) return false;
+            password = next;
+            access = client.login(email, password);
+            if (access == null) return false;
+        }
+        return true;
+    }
+
+    private static void report(EndpointStats[] stats, long wallNanos, long failedScripts) {
+        System.out.printf(Locale.ROOT, "%nDuración: %.1f s, guiones fallidos: %d%n", wallNanos / 1e9, failedScripts);
+        System.out.printf(Locale.ROOT, "%-16s %8s %7s %9s %10s %10s %10s %10s%n",
+                "endpoint", "count", "errors", "req/s", "p50 µs", "p99 µs", "p999 µs", "max µs");
+        for (EndpointStats s : stats) {
+            System.out.printf(Locale.ROOT, "%-16s %8d %7d %9.1f %10d %10d %10d %10d%n",
+                    s.name, s.count(), s.errors(), s.throughput(wallNanos), s.p50(), s.p99(), s.p999(), s.max());
+        }
+    }
+
+    /** {@code --clave valor} → mapa. */
+    private static Map<String, String> parse(String[] args) {
+        var out = new HashMap<String, String>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--")) throw new IllegalArgumentException("Argumento inesperado: " + args[i]);
+            String key = args[i].substring(2);
+            if (i + 1 >= args.length) throw new IllegalArgumentException("Falta valor para --" + key);
+            out.put(key, args[++i]);
+        }
+        return out;
+    }
+}
@@ -0,0 +1,170 @@
+package com.site.loadtest;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Servidor SMTP mínimo (sin auth ni STARTTLS) que guarda los correos por destinatario.
+ * Sustituye a Gmail durante la carga: la app se arranca con el perfil {@code loadtest}.
+ */
+final class SmtpStandIn implements AutoCloseable {
+
+    private static final Pattern TOKEN = Pattern.compile("[?&]token=([A-Za-z0-9_-]+)");
+    private static final Pattern RCPT = Pattern.compile("(?i)RCPT TO:\\s*<([^>]+)>");
+
+    private final ServerSocket server;
+    private final Map<String, BlockingQueue<String>> mailboxes = new ConcurrentHashMap<>();
+    private volatile boolean running = true;
+
+    SmtpStandIn(int port) throws IOException {
+        this.server = new ServerSocket(port, 512, InetAddress.getLoopbackAddress());
+        Thread.ofVirtual().name("smtp-accept").start(this::acceptLoop);
+    }
+
+    /** Espera el siguiente correo para {@code email} y devuelve el token del enlace de verificación. */
+    String awaitVerificationToken(String email, long timeoutMillis) throws InterruptedException {
+        String raw = mailbox(email).poll(timeoutMillis, TimeUnit.MILLISECONDS);
+        if (raw == null) throw new IllegalStateException("Sin correo de verificación para " + email);
+        String token = findToken(decodeQuotedPrintable(raw));
+        if (token == null) token = findToken(decodeBase64Parts(raw));
+        if (token == null) throw new IllegalStateException("Correo sin token para " + email);
+        return token;
+    }
+
+    private void acceptLoop() {
+        while (running) {
+            try {
+                Socket s = server.accept();
+                Thread.ofVirtual().start(() -> handle(s));
+            } catch (IOException e) {
+                if (running) System.err.println("[SMTP] accept: " + e.getMessage());
+            }
+        }
+    }
+
+    private void handle(Socket socket) {
+        try (socket;
+             var in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             OutputStream out = socket.getOutputStream()) {
+            reply(out, "220 localhost SMTP stand-in");
+            String rcpt = null;
+            String line;
+            while ((line = in.readLine()) != null) {
+                String cmd = line.length() >= 4 ? line.substring(0, 4).toUpperCase(Locale.ROOT) : line.toUpperCase(Locale.ROOT);
+                switch (cmd) {
+                    case "EHLO", "HELO" -> reply(out, "250 localhost");
+                    case "MAIL", "RSET", "NOOP" -> reply(out, "250 OK");
+                    case "RCPT" -> {
+                        Matcher m = RCPT.matcher(line);
+                        if (m.find()) rcpt = m.group(1).toLowerCase(Locale.ROOT);
+                        reply(out, "250 OK");
+                    }
+                    case "DATA" -> {
+                        reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                        var body = new StringBuilder();
+                        String l;
+                        while ((l = in.readLine()) != null && !l.equals(".")) {
+                            body.append(l.startsWith("..") ? l.substring(1) : l).append("\r\n");
+                        }
+                        if (rcpt != null) mailbox(rcpt).add(body.toString());
+                        reply(out, "250 OK queued");
+                    }
+                    case "QUIT" -> {
+                        reply(out, "221 Bye");
+                        return;
+                    }
+                    default -> reply(out, "502 Command not implemented");
+                }
+            }
+        } catch (IOException e) {
+            if (running) System.err.println("[SMTP] conexión: " + e.getMessage());
+        }
+    }
+
+    private BlockingQueue<String> mailbox(String email) {
+        return mailboxes.computeIfAbsent(email.toLowerCase(Locale.ROOT), k -> new LinkedBlockingQueue<>());
+    }
+
+    private static void reply(OutputStream out, String line) throws IOException {
+        out.write((line + "\r\n").getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+    }
+
+    private static String findToken(String text) {
+        Matcher m = TOKEN.matcher(text);
+        return m.find() ? m.group(1) : null;
+    }
+
+    /** Quita los saltos blandos y decodifica =XX (JavaMail usa quoted-printable para HTML casi ASCII). */
+    static String decodeQuotedPrintable(String raw) {
+        String s = raw.replace("=\r\n", "");
+        var bytes = new java.io.ByteArrayOutputStream(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '=' && i + 2 < s.length()
+                    && Character.digit(s.charAt(i + 1), 16) >= 0 && Character.digit(s.charAt(i + 2), 16) >= 0) {
+                bytes.write(Integer.parseInt(s, i + 1, i + 3, 16));
+                i += 2;
+            } else {
+                bytes.write(c);
+            }
+        }
+        return bytes.toString(StandardCharsets.UTF_8);
+    }
+
+    /** Por si el cuerpo viene en base64: decodifica cada bloque tras una cabecera base64. */
+    static String decodeBase64Parts(String raw) {
+        var out = new StringBuilder();
+        String[] lines = raw.split("\r\n");
+        boolean inHeaders = false;
+        boolean base64 = false;
+        var block = new StringBuilder();
+        for (String l : lines) {
+            if (l.regionMatches(true, 0, "Content-Transfer-Encoding: base64", 0, 33)) {
+                inHeaders = true;
+                base64 = true;
+            } else if (inHeaders && l.isEmpty()) {
+                inHeaders = false;
+            } else if (base64 && !inHeaders) {
+                if (l.isEmpty() || l.startsWith("--")) {
+                    out.append(decodeQuietly(block.toString()));
+                    block.setLength(0);
+                    base64 = false;
+                } else {
+                    block.append(l.trim());
+                }
+            }
+        }
+        if (!block.isEmpty()) out.append(decodeQuietly(block.toString()));
+        return out.toString();
+    }
+
+    private static String decodeQuietly(String b64) {
+        try {
+            return new String(Base64.getMimeDecoder().decode(b64), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            return "";
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        server.close();
+    }
+}
@@ -0,0 +1,40 @@
+#!/usr/bin/env bash
+# Mide el tiempo hasta la primera respuesta (GET /readyz = 200, en el puerto de la API) de cada variante:
+#   jar        -> java -jar target/site-*.jar
+#   fast-start -> AOT + CDS (./mvnw -Pfast-start package)
+#   native     -> target/site (./mvnw -Pnative native:compile), si existe
+# Necesita la BD y el .env de siempre. Uso: scripts/startup-bench.sh [repeticiones]
+set -euo pipefail
+
+RUNS="${1:-5}"
+PORT="${SERVER_PORT:-8080}"
+JAR="target/site-0.0.1-SNAPSHOT.jar"
+FAST_DIR="target/fast-start"
+
+time_to_first_request() {
+  local start end pid
+  start=$(date +%s%N)
+  "$@" --server.port="$PORT" >/dev/null 2>&1 &
+  pid=$!
+  until curl -sf "http://localhost:$PORT/readyz" >/dev/null; do
+    if ! kill -0 "$pid" 2>/dev/null; then echo "FALLO"; return; fi
+    sleep 0.02
+  done
+  end=$(date +%s%N)
+  kill "$pid"; wait "$pid" 2>/dev/null || true
+  echo $(( (end - start) / 1000000 ))
+}
+
+bench() {
+  local name="$1"; shift
+  local results=()
+  for _ in $(seq "$RUNS"); do results+=("$(time_to_first_request "$@")"); done
+  printf '%-11s %s ms\n' "$name" "${results[*]}"
+}
+
+echo "Tiempo hasta la primera respuesta ($RUNS arranques por variante)"
+[[ -f "$JAR" ]] && bench jar java -jar "$JAR"
+[[ -f "$FAST_DIR/application.jsa" ]] && bench fast-start \
+  java -XX:SharedArchiveFile="$FAST_DIR/application.jsa" -Dspring.aot.enabled=true -jar "$FAST_DIR/site-0.0.1-SNAPSHOT.jar"
+[[ -x target/site ]] && bench native target/site
+exit 0
@@ -1,10 +1,10 @@
 package com.site;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.scheduling.annotation.EnableScheduling;
 
-import com.site.auth.user.UserRepository;
 import com.site.auth.user.UserService;
 
 import org.springframework.context.annotation.Bean;
@@ -18,27 +18,35 @@ public class SiteApplication {
         SpringApplication.run(SiteApplication.class, args);
     }
 
+    /**
+     * Usuario de la seed. Si ya existe solo se asegura que está verificado: re-hashear la
+     * contraseña en cada arranque (bcrypt + UPDATE) retrasa el escalado; se fuerza con
+     * {@code app.seed.reset-password=true}. {@code app.seed.enabled} se mira al arrancar (no con
+     * una condición) para que también valga en el build AOT.
+     */
     @Bean
-    CommandLineRunner seedDefaultUser(UserRepository userRepo, UserService userService) {
+    CommandLineRunner seedDefaultUser(UserService userService,
+                                      @Value("${app.seed.enabled:true}") boolean enabled,
+                                      @Value("${app.seed.reset-password:false}") boolean resetPassword) {
         return args -> {
+            if (!enabled) return;
             final String username = "oscar";
             final String email = "oscar@seed.local"; // correo fijo para la seed
             final String rawPassword = "oscar";
 
-            userRepo.findByUsername(username)
-                    .or(() -> userRepo.findByEmail(email))
+            // Por el servicio (no el repositorio): con sharding el usuario puede estar en cualquier shard
+            userService.findByUsernameOrEmail(username)
+                    .or(() -> userService.findByUsernameOrEmail(email))
                     .ifPresentOrElse(existing -> {
-                        // Asegura que está verificado y con la contraseña de la seed
-                        if (!existing.isEnabled()) {
-                            existing.setEnabled(true);
-                            userRepo.save(existing);
+                        // Asegura que está verificado (y, si se pide, con la contraseña de la seed)
+                        userService.markVerified(existing.getId());
+                        if (resetPassword) {
+                            userService.forceChangePassword(existing.getId(), rawPassword);
                         }
-                        userService.forceChangePassword(existing.getId(), rawPassword);
                     }, () -> {
-                        // Crea el usuario si no existe
-                        var u = userService.register(username, email, rawPassword);
-                        u.setEnabled(true); // marcado como verificado
-                        userRepo.save(u);
+                        // Crea el usuario si no existe, marcado como verificado (sin el filtro de filtradas)
+                        var u = userService.registerSeed(username, email, rawPassword);
+                        userService.markVerified(u.getId());
                     });
         };
     }
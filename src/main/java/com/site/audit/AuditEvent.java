@@ -0,0 +1,13 @@
+package com.site.audit;
+
+/**
+ * Evento compacto tal como se publica en el ring buffer: sin Instant ni objetos de la
+ * petición, solo lo que acaba en la fila.
+ *
+ * @param occurredAt epoch en milisegundos
+ * @param userId     null si no se llegó a identificar al usuario
+ * @param subject    identificador con el que se intentó (usuario/email), recortado
+ * @param detail     código de error o null si salió bien
+ */
+public record AuditEvent(long occurredAt, AuditEventType type, Long userId,
+                         String subject, String remoteAddr, String detail) {}
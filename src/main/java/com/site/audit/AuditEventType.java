@@ -0,0 +1,14 @@
+package com.site.audit;
+
+/** Tipos de evento de auditoría; se guardan por nombre en {@code auth_audit.event_type}. */
+public enum AuditEventType {
+    LOGIN_OK,
+    LOGIN_FAILED,
+    PASSWORD_CHANGED,
+    PASSWORD_CHANGE_FAILED,
+    RESET_REQUESTED,
+    RESET_OK,
+    RESET_FAILED,
+    VERIFY_OK,
+    VERIFY_FAILED
+}
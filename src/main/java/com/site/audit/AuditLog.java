@@ -0,0 +1,168 @@
+package com.site.audit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Auditoría de auth sin coste apreciable en la petición: el hilo de la petición solo publica
+ * un {@link AuditEvent} en un {@link AuditRingBuffer}; un único hilo consumidor lo vacía en
+ * INSERTs multi-fila ({@link AuditWriter}).
+ *
+ * <p>Si el buffer está lleno, {@code app.audit.overflow} decide: {@code DROP} (por defecto)
+ * descarta el evento, {@code WAIT} reintenta hasta {@code app.audit.max-wait} y después
+ * descarta. Los descartes se cuentan en {@code auth.audit.dropped}.
+ */
+@Component
+public class AuditLog implements SmartLifecycle {
+    private static final Logger log = LoggerFactory.getLogger(AuditLog.class);
+
+    public enum Overflow { DROP, WAIT }
+
+    private static final int SUBJECT_MAX = 120;
+    private static final int REMOTE_ADDR_MAX = 45;
+
+    private final AuditRingBuffer buffer;
+    private final AuditWriter writer;
+    private final boolean enabled;
+    private final Overflow overflow;
+    private final long maxWaitNanos;
+    private final long flushIntervalNanos;
+    private final int batchSize;
+
+    private final Counter published;
+    private final Counter droppedFull;
+    private final Counter droppedWrite;
+
+    private volatile boolean running;
+    private Thread consumer;
+
+    public AuditLog(AuditWriter writer,
+                    MeterRegistry registry,
+                    @Value("${app.audit.enabled:true}") boolean enabled,
+                    @Value("${app.audit.capacity:8192}") int capacity,
+                    @Value("${app.audit.batch-size:500}") int batchSize,
+                    @Value("${app.audit.flush-interval:200ms}") Duration flushInterval,
+                    @Value("${app.audit.overflow:DROP}") Overflow overflow,
+                    @Value("${app.audit.max-wait:5ms}") Duration maxWait) {
+        this.writer = writer;
+        this.enabled = enabled;
+        this.buffer = new AuditRingBuffer(capacity);
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.overflow = overflow;
+        this.maxWaitNanos = maxWait.toNanos();
+
+        this.published = Counter.builder("auth.audit.published")
+                .description("Eventos de auditoría aceptados en el buffer")
+                .register(registry);
+        this.droppedFull = Counter.builder("auth.audit.dropped").tag("reason", "full")
+                .description("Eventos de auditoría descartados")
+                .register(registry);
+        this.droppedWrite = Counter.builder("auth.audit.dropped").tag("reason", "write_error")
+                .description("Eventos de auditoría descartados")
+                .register(registry);
+        Gauge.builder("auth.audit.queue.depth", buffer, AuditRingBuffer::size)
+                .description("Eventos pendientes de escribir")
+                .register(registry);
+    }
+
+    public void record(AuditEventType type, Long userId, String subject, String detail) {
+        if (!enabled) return;
+        var event = new AuditEvent(System.currentTimeMillis(), type, userId,
+                truncate(subject, SUBJECT_MAX), truncate(remoteAddr(), REMOTE_ADDR_MAX), detail);
+        if (buffer.offer(event) || (overflow == Overflow.WAIT && offerWaiting(event))) {
+            published.increment();
+        } else {
+            droppedFull.increment();
+        }
+    }
+
+    public void record(AuditEventType type, Long userId, String detail) {
+        record(type, userId, null, detail);
+    }
+
+    private boolean offerWaiting(AuditEvent event) {
+        long deadline = System.nanoTime() + maxWaitNanos;
+        while (System.nanoTime() < deadline) {
+            LockSupport.parkNanos(50_000);
+            if (buffer.offer(event)) return true;
+        }
+        return false;
+    }
+
+    // ===== consumidor =====
+
+    private void drainLoop() {
+        List<AuditEvent> batch = new ArrayList<>(batchSize);
+        while (running) {
+            int n = buffer.drainTo(batch, batchSize);
+            if (n > 0) flush(batch);
+            if (n < batchSize) LockSupport.parkNanos(flushIntervalNanos); // lote incompleto: acumular
+        }
+        // Parada: vaciar lo que quede
+        while (buffer.drainTo(batch, batchSize) > 0) flush(batch);
+    }
+
+    private void flush(List<AuditEvent> batch) {
+        try {
+            writer.write(batch);
+        } catch (RuntimeException e) {
+            droppedWrite.increment(batch.size());
+            log.warn("No se pudieron escribir {} eventos de auditoría: {}", batch.size(), e.getMessage());
+        } finally {
+            batch.clear();
+        }
+    }
+
+    @Override
+    public void start() {
+        if (!enabled || running) return;
+        running = true;
+        consumer = new Thread(this::drainLoop, "auth-audit-writer");
+        consumer.setDaemon(true);
+        consumer.start();
+    }
+
+    @Override
+    public void stop() {
+        if (!running) return;
+        running = false;
+        LockSupport.unpark(consumer);
+        try {
+            consumer.join(Duration.ofSeconds(10).toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() { return running; }
+
+    /** Fase menor que la del servidor web: arranca antes y se para después de dejar de aceptar peticiones. */
+    @Override
+    public int getPhase() { return SmartLifecycle.DEFAULT_PHASE - 4096; }
+
+    private static String remoteAddr() {
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attrs) {
+            return attrs.getRequest().getRemoteAddr();
+        }
+        return null;
+    }
+
+    private static String truncate(String s, int max) {
+        return s == null || s.length() <= max ? s : s.substring(0, max);
+    }
+}
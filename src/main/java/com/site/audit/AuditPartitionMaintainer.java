@@ -0,0 +1,68 @@
+package com.site.audit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+
+/**
+ * Crea por adelantado las particiones mensuales (UTC) de {@code auth_audit}: el mes actual y
+ * {@code app.audit.partitions-ahead} más. La partición DEFAULT solo recoge filas si esto falla.
+ * Con {@code app.audit.enabled=false} no hace nada (se mira al arrancar para que valga con AOT).
+ */
+@Component
+public class AuditPartitionMaintainer {
+    private static final Logger log = LoggerFactory.getLogger(AuditPartitionMaintainer.class);
+
+    private final JdbcTemplate jdbc;
+    private final String schema;
+    private final int monthsAhead;
+    private final boolean enabled;
+
+    public AuditPartitionMaintainer(JdbcTemplate jdbc,
+                                    @Value("${spring.jpa.properties.hibernate.default_schema}") String schema,
+                                    @Value("${app.audit.partitions-ahead:2}") int monthsAhead,
+                                    @Value("${app.audit.enabled:true}") boolean enabled) {
+        this.jdbc = jdbc;
+        this.schema = schema;
+        this.monthsAhead = monthsAhead;
+        this.enabled = enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        ensurePartitions();
+    }
+
+    /** A diario (zona Madrid); es idempotente. */
+    @Scheduled(cron = "0 15 3 * * *", zone = "Europe/Madrid")
+    public void ensurePartitions() {
+        if (!enabled) return;
+        YearMonth current = YearMonth.now(ZoneOffset.UTC);
+        for (int i = 0; i <= monthsAhead; i++) {
+            YearMonth m = current.plusMonths(i);
+            try {
+                create(m);
+            } catch (RuntimeException e) {
+                // p. ej. la DEFAULT ya tiene filas de ese mes: hay que moverlas a mano
+                log.warn("No se pudo crear la partición de auditoría {}: {}", m, e.getMessage());
+            }
+        }
+    }
+
+    private void create(YearMonth m) {
+        LocalDate from = m.atDay(1);
+        LocalDate to = m.plusMonths(1).atDay(1);
+        String name = "auth_audit_p%04d%02d".formatted(m.getYear(), m.getMonthValue());
+        jdbc.execute("create table if not exists %s.%s partition of %s.auth_audit for values from ('%s') to ('%s')"
+                .formatted(schema, name, schema, from, to));
+    }
+}
@@ -0,0 +1,70 @@
+package com.site.audit;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Ring buffer acotado de varios productores y un solo consumidor, sin locks.
+ *
+ * <p>Cada productor reserva una secuencia con CAS sobre {@code tail}, escribe su slot y lo
+ * publica guardando la secuencia en {@code published}. El consumidor avanza {@code head}
+ * mientras el slot siguiente esté publicado, así que un productor lento no deja ver un slot a
+ * medio escribir aunque otros posteriores ya hayan terminado.
+ */
+final class AuditRingBuffer {
+
+    private final int mask;
+    private final AuditEvent[] slots;
+    private final AtomicLongArray published;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+
+    AuditRingBuffer(int capacity) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("La capacidad debe ser potencia de 2: " + capacity);
+        }
+        this.mask = capacity - 1;
+        this.slots = new AuditEvent[capacity];
+        this.published = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) published.set(i, -1);
+    }
+
+    /** False si está lleno; nunca bloquea. */
+    boolean offer(AuditEvent event) {
+        long seq;
+        do {
+            seq = tail.get();
+            if (seq - head.get() > mask) return false;
+        } while (!tail.compareAndSet(seq, seq + 1));
+
+        int i = (int) seq & mask;
+        slots[i] = event;
+        published.set(i, seq); // escritura volátil: publica el slot
+        return true;
+    }
+
+    /** Solo desde el hilo consumidor. Mueve hasta {@code max} eventos a {@code out}. */
+    int drainTo(List<AuditEvent> out, int max) {
+        long h = head.get();
+        int n = 0;
+        while (n < max) {
+            int i = (int) h & mask;
+            if (published.get(i) != h) break;
+            out.add(slots[i]);
+            slots[i] = null;
+            h++;
+            n++;
+        }
+        if (n > 0) head.set(h); // libera los slots para los productores
+        return n;
+    }
+
+    int size() {
+        return (int) Math.max(0, tail.get() - head.get());
+    }
+
+    int capacity() {
+        return mask + 1;
+    }
+}
@@ -0,0 +1,55 @@
+package com.site.audit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+/** Inserta un lote de eventos en {@code auth_audit} con un único INSERT multi-fila. */
+@Component
+class AuditWriter {
+
+    private static final int COLUMNS = 6;
+
+    private final JdbcTemplate jdbc;
+    private final String insertPrefix;
+    private final int batchSize;
+    private final String fullBatchSql;
+
+    AuditWriter(JdbcTemplate jdbc,
+                @Value("${spring.jpa.properties.hibernate.default_schema}") String schema,
+                @Value("${app.audit.batch-size:500}") int batchSize) {
+        this.jdbc = jdbc;
+        this.insertPrefix = "insert into " + schema
+                + ".auth_audit (occurred_at, event_type, user_id, subject, remote_addr, detail) values ";
+        this.batchSize = batchSize;
+        this.fullBatchSql = sql(batchSize); // el caso habitual bajo carga: sin reconstruir el SQL
+    }
+
+    void write(List<AuditEvent> batch) {
+        Object[] args = new Object[batch.size() * COLUMNS];
+        int a = 0;
+        for (AuditEvent e : batch) {
+            args[a++] = OffsetDateTime.ofInstant(Instant.ofEpochMilli(e.occurredAt()), ZoneOffset.UTC);
+            args[a++] = e.type().name();
+            args[a++] = e.userId();
+            args[a++] = e.subject();
+            args[a++] = e.remoteAddr();
+            args[a++] = e.detail();
+        }
+        jdbc.update(batch.size() == batchSize ? fullBatchSql : sql(batch.size()), args);
+    }
+
+    private String sql(int rows) {
+        var sb = new StringBuilder(insertPrefix.length() + rows * 16).append(insertPrefix);
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) sb.append(',');
+            sb.append("(?,?,?,?,?,?)");
+        }
+        return sb.toString();
+    }
+}
@@ -1,18 +1,30 @@
 package com.site.auth;
 
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import com.site.auth.password.MaxUtf8Bytes;
 import com.site.auth.password.PasswordResetService;
+import com.site.auth.user.User;
 import com.site.auth.user.UserService;
 import com.site.auth.verification.EmailVerificationService;
+import com.site.jfr.LoginEvent;
+import com.site.metrics.AuthMetrics;
 import com.site.security.JWTService;
 
 import static com.site.security.JwtUtils.getUid;
 
-import java.util.Map;
+import java.time.Instant;
 
 @RestController
 @RequestMapping("/auth")
@@ -22,39 +34,47 @@ public class AuthController {
     private final PasswordResetService passwordResetService;
     private final EmailVerificationService emailVerificationService;
     private final JWTService jwtService;
+    private final LoginResponseWriter loginResponseWriter;
+    private final AuthMetrics metrics;
 
     public AuthController(UserService userService,
                           PasswordResetService passwordResetService,
                           EmailVerificationService emailVerificationService,
-                          JWTService jwtService) {
+                          JWTService jwtService,
+                          LoginResponseWriter loginResponseWriter,
+                          AuthMetrics metrics) {
         this.userService = userService;
         this.passwordResetService = passwordResetService;
         this.emailVerificationService = emailVerificationService;
         this.jwtService = jwtService;
+        this.loginResponseWriter = loginResponseWriter;
+        this.metrics = metrics;
     }
 
     @PostMapping("/register")
-    public ResponseEntity<?> register(@RequestBody Map<String, String> body) {
-        var user = userService.register(body.get("username"), body.get("email"), body.get("password"));
+    public ResponseEntity<RegisterResponse> register(@Valid @RequestBody RegisterRequest body) {
+        var user = userService.register(body.username(), body.email(), body.password());
         emailVerificationService.send(user);
-        return ResponseEntity.ok(Map.of(
-                "id", user.getId(),
-                "username", user.getUsername(),
-                "email", user.getEmail(),
-                "enabled", user.isEnabled(),
-                "createdAt", user.getCreatedAt()
-        ));
+        return ResponseEntity.ok(new RegisterResponse(
+                user.getId(), user.getUsername(), user.getEmail(), user.isEnabled(), user.getCreatedAt()));
     }
 
     @PostMapping("/login")
-    public ResponseEntity<?> login(@RequestBody Map<String, String> body) {
-        var user = userService.authenticate(body.get("usernameOrEmail"), body.get("password"));
-        String access = jwtService.generate(user.getUsername(), Map.of("uid", user.getId()));
-        return ResponseEntity.ok(Map.of(
-                "tokenType", "Bearer",
-                "accessToken", access,
-                "expiresIn", jwtService.getExpirationSeconds()
-        ));
+    public ResponseEntity<byte[]> login(@Valid @RequestBody LoginRequest body) {
+        var event = LoginEvent.start(); // abarca también la espera de conexión de la transacción
+        User user;
+        try {
+            user = userService.authenticate(body.usernameOrEmail(), body.password());
+        } catch (AuthError e) {
+            event.finish(e.code(), null);
+            throw e;
+        }
+        String access = metrics.time("login", "jwt_sign",
+                () -> jwtService.generate(user));
+        event.finish("OK", user.getId());
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(loginResponseWriter.write(access));
     }
 
     @PostMapping("/logout-all")
@@ -63,30 +83,73 @@ public class AuthController {
     }
 
     @PostMapping("/forgot-password")
-    public ResponseEntity<Void> forgotPassword(@RequestBody Map<String, String> body) {
-        passwordResetService.requestReset(body.getOrDefault("email", ""));
+    public ResponseEntity<Void> forgotPassword(@Valid @RequestBody ForgotPasswordRequest body) {
+        passwordResetService.requestReset(body.email());
         return ResponseEntity.noContent().build();
     }
 
     @PostMapping("/reset-password")
-    public ResponseEntity<Void> resetPassword(@RequestBody Map<String, String> body) {
-        passwordResetService.reset(body.get("token"), body.get("newPassword"));
+    public ResponseEntity<Void> resetPassword(@Valid @RequestBody ResetPasswordRequest body) {
+        passwordResetService.reset(body.token(), body.newPassword());
         return ResponseEntity.noContent().build();
     }
 
+    /** Perfil propio desde la caché; con If-None-Match responde 304 sin tocar la BD. */
+    @GetMapping("/users/me")
+    public ResponseEntity<UserResponse> me(@AuthenticationPrincipal Jwt jwt, WebRequest request) {
+        Long uid = getUid(jwt);
+        if (uid == null) throw new org.springframework.security.access.AccessDeniedException("JWT sin uid");
+
+        var user = userService.requireSnapshot(uid);
+        String etag = "\"" + user.id() + "-" + user.version() + "\"";
+        if (request.checkNotModified(etag)) {
+            return null; // 304 con ETag ya escrito por checkNotModified
+        }
+
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .header(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().cachePrivate().getHeaderValue())
+                .body(new UserResponse(user.id(), user.username(), user.email(),
+                        user.enabled(), user.level(), user.createdAt()));
+    }
+
     @PutMapping("/users/me/password")
     public ResponseEntity<Void> changeOwnPassword(
             @AuthenticationPrincipal Jwt jwt,
-            @RequestBody Map<String, String> body
+            @Valid @RequestBody ChangePasswordRequest body
     ) {
         Long uid = getUid(jwt);
         if (uid == null) throw new org.springframework.security.access.AccessDeniedException("JWT sin uid");
 
-        String current = body.getOrDefault("currentPassword", "");
-        String next = body.getOrDefault("newPassword", "");
-
-        userService.changePassword(uid, current, next);
+        userService.changePassword(uid, body.currentPassword(), body.newPassword());
 
         return ResponseEntity.noContent().build();
     }
+
+    // ===== DTOs =====
+    // bcrypt solo admite 72 bytes: las contraseñas nuevas más largas (en UTF-8) se rechazan aquí.
+    // Las que solo se comparan (login, contraseña actual) no se limitan: bcrypt usa los 72 primeros.
+
+    public record RegisterRequest(
+            @NotBlank @Size(max = 50) String username,
+            @NotBlank @Email @Size(max = 120) String email,
+            @NotBlank @MaxUtf8Bytes(72) String password) {}
+
+    public record LoginRequest(
+            @NotBlank @Size(max = 120) String usernameOrEmail,
+            @NotBlank String password) {}
+
+    public record ForgotPasswordRequest(@NotBlank @Email @Size(max = 120) String email) {}
+
+    public record ResetPasswordRequest(
+            @NotBlank @Size(max = 128) String token,
+            @NotBlank @MaxUtf8Bytes(72) String newPassword) {}
+
+    public record ChangePasswordRequest(
+            @NotBlank String currentPassword,
+            @NotBlank @MaxUtf8Bytes(72) String newPassword) {}
+
+    public record RegisterResponse(Long id, String username, String email, boolean enabled, Instant createdAt) {}
+
+    public record UserResponse(Long id, String username, String email, boolean enabled, int level, Instant createdAt) {}
 }
@@ -0,0 +1,73 @@
+package com.site.auth;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Map;
+
+/**
+ * Errores de negocio de auth. Son instancias únicas y sin stack trace: lanzarlas no cuesta
+ * más que un {@code throw} (un login fallido es un caso normal, no excepcional), y cada una
+ * lleva ya construida su respuesta {@code {"code": ...}} para {@link AuthExceptionHandler}.
+ */
+public abstract sealed class AuthError extends RuntimeException {
+
+    // 400
+    public static final AuthError VALIDATION_ERROR = new BadRequest("VALIDATION_ERROR");
+    public static final AuthError USERNAME_EXISTS = new BadRequest("USERNAME_EXISTS");
+    public static final AuthError EMAIL_EXISTS = new BadRequest("EMAIL_EXISTS");
+    public static final AuthError CURRENT_PASSWORD_INCORRECT = new BadRequest("CURRENT_PASSWORD_INCORRECT");
+    public static final AuthError INVALID_TOKEN = new BadRequest("INVALID_TOKEN");
+    public static final AuthError TOKEN_ALREADY_USED = new BadRequest("TOKEN_ALREADY_USED");
+    public static final AuthError TOKEN_EXPIRED = new BadRequest("TOKEN_EXPIRED");
+    public static final AuthError RESET_TOKEN_INVALID = new BadRequest("RESET_TOKEN_INVALID");
+    public static final AuthError RESET_TOKEN_EXPIRED = new BadRequest("RESET_TOKEN_EXPIRED");
+    public static final AuthError PASSWORD_BREACHED = new BadRequest("PASSWORD_BREACHED");
+
+    // 401
+    public static final AuthError INVALID_CREDENTIALS = new Unauthorized("INVALID_CREDENTIALS");
+    public static final AuthError EMAIL_NOT_VERIFIED = new Unauthorized("EMAIL_NOT_VERIFIED");
+    public static final AuthError INTROSPECTION_UNAUTHORIZED = new Unauthorized("INTROSPECTION_UNAUTHORIZED");
+
+    // 404
+    public static final AuthError USER_NOT_FOUND = new NotFound("USER_NOT_FOUND");
+
+    // 409
+    public static final AuthError REBALANCE_RUNNING = new Conflict("REBALANCE_RUNNING");
+
+    // 503
+    public static final AuthError MAIL_SEND_FAILED = new Unavailable("MAIL_SEND_FAILED");
+
+    private final String code;
+    private final ResponseEntity<Map<String, String>> response;
+
+    private AuthError(String code, HttpStatus status) {
+        super(code, null, false, false);
+        this.code = code;
+        this.response = ResponseEntity.status(status).body(Map.of("code", code));
+    }
+
+    public String code() { return code; }
+
+    public ResponseEntity<Map<String, String>> response() { return response; }
+
+    public static final class BadRequest extends AuthError {
+        private BadRequest(String code) { super(code, HttpStatus.BAD_REQUEST); }
+    }
+
+    public static final class Unauthorized extends AuthError {
+        private Unauthorized(String code) { super(code, HttpStatus.UNAUTHORIZED); }
+    }
+
+    public static final class NotFound extends AuthError {
+        private NotFound(String code) { super(code, HttpStatus.NOT_FOUND); }
+    }
+
+    public static final class Conflict extends AuthError {
+        private Conflict(String code) { super(code, HttpStatus.CONFLICT); }
+    }
+
+    public static final class Unavailable extends AuthError {
+        private Unavailable(String code) { super(code, HttpStatus.SERVICE_UNAVAILABLE); }
+    }
+}
@@ -0,0 +1,43 @@
+package com.site.auth;
+
+import org.springframework.stereotype.Component;
+
+import com.site.security.JWTService;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Cuerpo JSON del login sin pasar por Jackson: la parte constante ({@code tokenType},
+ * {@code expiresIn}) se codifica una vez al arrancar y por petición solo se copia el token.
+ * Un JWT compacto solo tiene caracteres base64url y '.', así que no hace falta escapar nada.
+ */
+@Component
+public class LoginResponseWriter {
+
+    private static final byte[] SUFFIX = "\"}".getBytes(StandardCharsets.US_ASCII);
+
+    private final byte[] prefix;
+
+    public LoginResponseWriter(JWTService jwtService) {
+        this.prefix = ("{\"tokenType\":\"Bearer\",\"expiresIn\":" + jwtService.getExpirationSeconds()
+                + ",\"accessToken\":\"").getBytes(StandardCharsets.US_ASCII);
+    }
+
+    public byte[] write(String accessToken) {
+        int n = accessToken.length();
+        byte[] out = new byte[prefix.length + n + SUFFIX.length];
+        System.arraycopy(prefix, 0, out, 0, prefix.length);
+        for (int i = 0; i < n; i++) {
+            char c = accessToken.charAt(i);
+            if (!isJwtChar(c)) throw new IllegalStateException("Carácter inesperado en el JWT");
+            out[prefix.length + i] = (byte) c;
+        }
+        System.arraycopy(SUFFIX, 0, out, prefix.length + n, SUFFIX.length);
+        return out;
+    }
+
+    private static boolean isJwtChar(char c) {
+        return (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')
+                || c == '-' || c == '_' || c == '.';
+    }
+}
@@ -0,0 +1,69 @@
+package com.site.auth;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.site.metrics.AuthMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Ventana de enfriamiento por usuario para las peticiones que generan token y correo
+ * (reenviar verificación, olvidé mi contraseña). Dentro de la ventana la petición no hace
+ * nada: el token y el correo anteriores siguen valiendo. El controller responde igual (204).
+ *
+ * <p>Mapa en memoria acotado (una entrada por usuario y tipo que caduca con la ventana). Con
+ * {@code app.token-cooldown.db-check=true} se consulta además si ya hay un token reciente en
+ * BD, para que la ventana se respete también entre instancias.
+ */
+@Component
+public class RequestCooldown {
+
+    public enum Kind { VERIFY, RESET }
+
+    private final Map<Kind, Cache<Long, Boolean>> active = new EnumMap<>(Kind.class);
+    private final Map<Kind, Duration> windows = new EnumMap<>(Kind.class);
+    private final boolean dbCheck;
+    private final AuthMetrics metrics;
+
+    public RequestCooldown(AuthMetrics metrics,
+                           @Value("${app.token-cooldown.verify-window:2m}") Duration verifyWindow,
+                           @Value("${app.token-cooldown.reset-window:2m}") Duration resetWindow,
+                           @Value("${app.token-cooldown.maximum-size:100000}") long maximumSize,
+                           @Value("${app.token-cooldown.db-check:false}") boolean dbCheck) {
+        this.metrics = metrics;
+        this.dbCheck = dbCheck;
+        windows.put(Kind.VERIFY, verifyWindow);
+        windows.put(Kind.RESET, resetWindow);
+        windows.forEach((kind, window) -> active.put(kind, Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(window)
+                .build()));
+    }
+
+    /**
+     * True si la petición debe seguir (y abre la ventana); false si hay que ignorarla.
+     *
+     * @param recentInDb con db-check activo, recibe el corte de la ventana y dice si ya hay
+     *                   un token creado después
+     */
+    public boolean tryAcquire(Kind kind, Long userId, Predicate<Instant> recentInDb) {
+        if (active.get(kind).asMap().putIfAbsent(userId, Boolean.TRUE) != null
+                || (dbCheck && recentInDb.test(Instant.now().minus(windows.get(kind))))) {
+            metrics.cooldownSuppressed(kind.name().toLowerCase(Locale.ROOT));
+            return false;
+        }
+        return true;
+    }
+
+    /** Cierra la ventana (p. ej. si el envío falló) para que el usuario pueda reintentar. */
+    public void release(Kind kind, Long userId) {
+        active.get(kind).invalidate(userId);
+    }
+}
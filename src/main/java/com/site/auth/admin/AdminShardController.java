@@ -0,0 +1,42 @@
+package com.site.auth.admin;
+
+import com.site.auth.AuthError;
+import com.site.auth.user.ShardRebalancer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Operación del sharding (solo con {@code app.sharding.enabled}). Síncrono: cada llamada mueve
+ * como mucho {@code maxMoves} (≤ 10 000) usuarios; para más, repetirla.
+ */
+@RestController
+@RequestMapping("/auth/admin/shards")
+@PreAuthorize("hasRole('ADMIN')")
+@ConditionalOnProperty(prefix = "app.sharding", name = "enabled", havingValue = "true")
+public class AdminShardController {
+
+    private final ShardRebalancer rebalancer;
+
+    public AdminShardController(ShardRebalancer rebalancer) {
+        this.rebalancer = rebalancer;
+    }
+
+    @PostMapping("/rebalance")
+    public ShardRebalancer.Report rebalance(@RequestParam(defaultValue = "500") int batchSize,
+                                           @RequestParam(defaultValue = "1000") int maxMoves) {
+        if (batchSize < 1 || batchSize > 10_000 || maxMoves < 1 || maxMoves > 10_000) {
+            throw AuthError.VALIDATION_ERROR;
+        }
+        return rebalancer.rebalance(batchSize, maxMoves);
+    }
+
+    @PostMapping("/directory/sync")
+    public ShardRebalancer.SyncReport syncDirectory(@RequestParam(defaultValue = "1000") int batchSize) {
+        if (batchSize < 1 || batchSize > 10_000) throw AuthError.VALIDATION_ERROR;
+        return rebalancer.syncDirectory(batchSize);
+    }
+}
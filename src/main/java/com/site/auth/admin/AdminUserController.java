@@ -0,0 +1,57 @@
+package com.site.auth.admin;
+
+import com.site.auth.user.UserActivity;
+import com.site.auth.user.UserActivityTracker;
+import com.site.auth.user.UserService;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/** Directorio de usuarios para soporte. Rol ADMIN desde el JWT ({@code app.jwt.admin-level}). */
+@RestController
+@RequestMapping("/auth/admin")
+@PreAuthorize("hasRole('ADMIN')")
+public class AdminUserController {
+
+    private final UserDirectoryService directory;
+    private final UserService users;
+    private final UserActivityTracker activity;
+
+    public AdminUserController(UserDirectoryService directory, UserService users, UserActivityTracker activity) {
+        this.directory = directory;
+        this.users = users;
+        this.activity = activity;
+    }
+
+    /**
+     * {@code q}: subcadena de usuario o email (mín. 3 caracteres). {@code cursor}: el
+     * {@code nextCursor} de la página anterior.
+     */
+    @GetMapping("/users")
+    public ResponseEntity<UserDirectoryPage> search(
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) Boolean enabled,
+            @RequestParam(required = false) Integer minLevel,
+            @RequestParam(required = false) Integer maxLevel,
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestParam(required = false) String cursor) {
+        var page = directory.search(new UserDirectoryService.Query(q, enabled, minLevel, maxLevel, limit, cursor));
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noStore())
+                .body(page);
+    }
+
+    /** Último login y última actividad (incluye lo aún no volcado a BD); null si no hay dato. */
+    @GetMapping("/users/{id}/activity")
+    public ResponseEntity<UserActivity> activity(@PathVariable Long id) {
+        users.requireSnapshot(id); // 404 si no existe
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noStore())
+                .body(activity.find(id).orElseGet(() -> new UserActivity(id, null, null)));
+    }
+}
@@ -0,0 +1,7 @@
+package com.site.auth.admin;
+
+import java.time.Instant;
+
+/** Fila del directorio: solo lo que necesita soporte, sin hash ni versión. */
+public record UserDirectoryEntry(Long id, String username, String email, boolean enabled,
+                                 int level, Instant createdAt, Instant lastLoginAt) {}
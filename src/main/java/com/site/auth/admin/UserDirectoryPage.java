@@ -0,0 +1,9 @@
+package com.site.auth.admin;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+/** Una página; {@code nextCursor} se omite en la última. */
+public record UserDirectoryPage(List<UserDirectoryEntry> items,
+                                @JsonInclude(JsonInclude.Include.NON_NULL) String nextCursor) {}
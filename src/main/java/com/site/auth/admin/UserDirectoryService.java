@@ -0,0 +1,164 @@
+package com.site.auth.admin;
+
+import com.site.auth.AuthError;
+import com.site.auth.user.UserShards;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.ByteBuffer;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Búsqueda de usuarios para soporte: subcadena en usuario o email (índices GIN trigram sobre
+ * {@code lower(...)}), filtros por {@code enabled} y nivel, y paginación keyset sobre
+ * {@code (created_at, id)} descendente: ninguna página cuesta más que la primera.
+ *
+ * <p>SQL dinámico con parámetros nombrados; solo se añaden las condiciones pedidas para que el
+ * planificador vea una consulta simple. Solo lectura: con réplicas configuradas va a una réplica.
+ * Con sharding la misma consulta va a cada shard y se mezclan los resultados (el orden
+ * {@code (created_at, id)} es global: los ids no se repiten entre shards).
+ */
+@Service
+public class UserDirectoryService {
+
+    public static final int MIN_QUERY_LENGTH = 3; // por debajo el índice trigram no sirve
+    public static final int MAX_LIMIT = 200;
+
+    private static final Comparator<UserDirectoryEntry> NEWEST_FIRST =
+            Comparator.comparing(UserDirectoryEntry::createdAt).thenComparing(UserDirectoryEntry::id).reversed();
+
+    private final NamedParameterJdbcTemplate jdbc;
+    private final UserShards shards;
+    private final TransactionTemplate readOnly;
+    private final String schema;
+
+    public UserDirectoryService(NamedParameterJdbcTemplate jdbc,
+                                UserShards shards,
+                                PlatformTransactionManager txManager,
+                                @Value("${spring.jpa.properties.hibernate.default_schema}") String schema) {
+        this.jdbc = jdbc;
+        this.shards = shards;
+        this.readOnly = new TransactionTemplate(txManager);
+        this.readOnly.setReadOnly(true);
+        this.schema = schema;
+    }
+
+    public record Query(@Nullable String q, @Nullable Boolean enabled,
+                        @Nullable Integer minLevel, @Nullable Integer maxLevel,
+                        int limit, @Nullable String cursor) {}
+
+    /** Consulta de una página tal como se envía a cada shard. */
+    record Statement(String sql, MapSqlParameterSource params) {}
+
+    public UserDirectoryPage search(Query query) {
+        var statement = statement(query);
+        var rows = new ArrayList<UserDirectoryEntry>();
+        for (int shard = 0; shard < shards.count(); shard++) {
+            rows.addAll(shards.onShard(shard, () -> readOnly.execute(
+                    tx -> jdbc.query(statement.sql(), statement.params(), UserDirectoryService::entry))));
+        }
+        if (shards.count() > 1) rows.sort(NEWEST_FIRST);
+
+        String next = null;
+        var page = rows.size() > query.limit() ? rows.subList(0, query.limit()) : rows;
+        if (page != rows) {
+            var last = page.get(page.size() - 1);
+            next = new Cursor(last.createdAt(), last.id()).encode();
+        }
+        return new UserDirectoryPage(List.copyOf(page), next);
+    }
+
+    Statement statement(Query query) {
+        if (query.limit() < 1 || query.limit() > MAX_LIMIT) throw AuthError.VALIDATION_ERROR;
+
+        var sql = new StringBuilder("""
+                select u.id, u.username, u.email, u.enabled, u.level, u.created_at, a.last_login_at
+                from %1$s.users u
+                left join %1$s.user_activity a on a.user_id = u.id
+                where true""".formatted(schema));
+        var params = new MapSqlParameterSource();
+
+        String q = query.q() == null ? "" : query.q().strip();
+        if (!q.isEmpty()) {
+            if (q.length() < MIN_QUERY_LENGTH) throw AuthError.VALIDATION_ERROR;
+            sql.append(" and (lower(u.username) like :q escape '\\' or lower(u.email) like :q escape '\\')");
+            params.addValue("q", "%" + escapeLike(q.toLowerCase(Locale.ROOT)) + "%");
+        }
+        if (query.enabled() != null) {
+            sql.append(" and u.enabled = :enabled");
+            params.addValue("enabled", query.enabled());
+        }
+        if (query.minLevel() != null) {
+            sql.append(" and u.level >= :minLevel");
+            params.addValue("minLevel", query.minLevel());
+        }
+        if (query.maxLevel() != null) {
+            sql.append(" and u.level <= :maxLevel");
+            params.addValue("maxLevel", query.maxLevel());
+        }
+        if (query.cursor() != null && !query.cursor().isBlank()) {
+            Cursor c = Cursor.decode(query.cursor());
+            sql.append(" and (u.created_at, u.id) < (:cursorAt, :cursorId)");
+            params.addValue("cursorAt", OffsetDateTime.ofInstant(c.createdAt(), ZoneOffset.UTC));
+            params.addValue("cursorId", c.id());
+        }
+        // Una fila de más para saber si hay página siguiente sin contar
+        sql.append(" order by u.created_at desc, u.id desc limit :limit");
+        params.addValue("limit", query.limit() + 1);
+        return new Statement(sql.toString(), params);
+    }
+
+    private static UserDirectoryEntry entry(ResultSet rs, int row) throws SQLException {
+        var lastLogin = rs.getObject("last_login_at", OffsetDateTime.class);
+        return new UserDirectoryEntry(
+                rs.getLong("id"),
+                rs.getString("username"),
+                rs.getString("email"),
+                rs.getBoolean("enabled"),
+                rs.getInt("level"),
+                rs.getObject("created_at", OffsetDateTime.class).toInstant(),
+                lastLogin == null ? null : lastLogin.toInstant());
+    }
+
+    /** El usuario busca texto literal: {@code _} y {@code %} no son comodines. */
+    static String escapeLike(String s) {
+        return s.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    /** Posición keyset opaca para el cliente: base64url de (created_at en µs, id). */
+    record Cursor(Instant createdAt, long id) {
+
+        String encode() {
+            long micros = Math.addExact(Math.multiplyExact(createdAt.getEpochSecond(), 1_000_000L),
+                    createdAt.getNano() / 1_000);
+            var buf = ByteBuffer.allocate(16).putLong(micros).putLong(id);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(buf.array());
+        }
+
+        static Cursor decode(String s) {
+            try {
+                var buf = ByteBuffer.wrap(Base64.getUrlDecoder().decode(s));
+                if (buf.remaining() != 16) throw AuthError.VALIDATION_ERROR;
+                long micros = buf.getLong();
+                return new Cursor(Instant.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                        Math.floorMod(micros, 1_000_000L) * 1_000L), buf.getLong());
+            } catch (IllegalArgumentException e) {
+                throw AuthError.VALIDATION_ERROR;
+            }
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.site.auth.introspect;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/** Estilo RFC 7662: un token inactivo solo lleva {@code active=false}. {@code exp} en epoch (s). */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record IntrospectionResult(boolean active, Long uid, String sub, Long exp) {
+    public static final IntrospectionResult INACTIVE = new IntrospectionResult(false, null, null, null);
+}
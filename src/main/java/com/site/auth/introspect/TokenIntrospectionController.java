@@ -0,0 +1,71 @@
+package com.site.auth.introspect;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
+import org.springframework.web.bind.annotation.*;
+
+import com.site.auth.AuthError;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Introspección por lotes para otros servicios: validan todos los JWT de sus peticiones en
+ * curso con una sola llamada y sin compartir el secreto HMAC. La respuesta se puede cachear
+ * hasta el {@code exp} más cercano de los tokens activos.
+ *
+ * <p>Exige la cabecera {@code X-Introspect-Key}: sin {@code app.introspect.api-key} la app no
+ * arranca (abierto, cualquiera podría probar tokens y gastar HMAC del servidor).
+ */
+@RestController
+@RequestMapping("/auth")
+public class TokenIntrospectionController {
+
+    private final TokenIntrospectionService introspection;
+    private final byte[] apiKey;
+
+    public TokenIntrospectionController(TokenIntrospectionService introspection,
+                                        @Value("${app.introspect.api-key:}") @Nullable String apiKey) {
+        if (apiKey == null || apiKey.isBlank()) {
+            throw new IllegalStateException("Falta app.introspect.api-key (APP_INTROSPECT_API_KEY)");
+        }
+        this.introspection = introspection;
+        this.apiKey = apiKey.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @PostMapping("/introspect")
+    public ResponseEntity<IntrospectResponse> introspect(
+            @RequestHeader(value = "X-Introspect-Key", required = false) String key,
+            @Valid @RequestBody IntrospectRequest body) {
+        if (key == null || !MessageDigest.isEqual(apiKey, key.getBytes(StandardCharsets.UTF_8))) {
+            throw AuthError.INTROSPECTION_UNAUTHORIZED;
+        }
+
+        var results = introspection.introspect(body.tokens());
+
+        long now = Instant.now().getEpochSecond();
+        long minTtl = results.stream()
+                .filter(r -> r.active() && r.exp() != null)
+                .mapToLong(r -> r.exp() - now)
+                .min().orElse(-1);
+
+        var res = ResponseEntity.ok();
+        if (minTtl > 0) res.cacheControl(CacheControl.maxAge(Duration.ofSeconds(minTtl)).cachePrivate());
+        else res.cacheControl(CacheControl.noStore());
+        return res.body(new IntrospectResponse(results));
+    }
+
+    public record IntrospectRequest(
+            @NotNull @Size(min = 1, max = 100) List<@NotBlank @Size(max = 4096) String> tokens) {}
+
+    public record IntrospectResponse(List<IntrospectionResult> results) {}
+}
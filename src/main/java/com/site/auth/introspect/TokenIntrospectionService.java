@@ -0,0 +1,45 @@
+package com.site.auth.introspect;
+
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import static com.site.security.JwtUtils.getUid;
+
+/** Valida un lote de JWT con el mismo {@link JwtDecoder} que protege la API. */
+@Service
+public class TokenIntrospectionService {
+
+    private final JwtDecoder decoder;
+
+    public TokenIntrospectionService(JwtDecoder decoder) {
+        this.decoder = decoder;
+    }
+
+    /** Un resultado por token, en el mismo orden; los repetidos se validan una sola vez. */
+    public List<IntrospectionResult> introspect(List<String> tokens) {
+        var seen = new HashMap<String, IntrospectionResult>();
+        var out = new ArrayList<IntrospectionResult>(tokens.size());
+        for (String t : tokens) {
+            out.add(seen.computeIfAbsent(t, this::introspectOne));
+        }
+        return out;
+    }
+
+    private IntrospectionResult introspectOne(String token) {
+        try {
+            Jwt jwt = decoder.decode(token);
+            Instant exp = jwt.getExpiresAt();
+            return new IntrospectionResult(true, getUid(jwt), jwt.getSubject(),
+                    exp == null ? null : exp.getEpochSecond());
+        } catch (JwtException e) {
+            return IntrospectionResult.INACTIVE;
+        }
+    }
+}
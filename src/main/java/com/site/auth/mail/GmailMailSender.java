@@ -1,6 +1,10 @@
 package com.site.auth.mail;
 
+import com.site.auth.AuthError;
+import com.site.jfr.MailSendEvent;
 import jakarta.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Primary;
 import org.springframework.lang.Nullable;
@@ -8,9 +12,12 @@ import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+
 @Service
 @Primary
 public class GmailMailSender implements MailSenderPort {
+    private static final Logger log = LoggerFactory.getLogger(GmailMailSender.class);
 
     private final JavaMailSender mailSender;
     private final String from;
@@ -26,6 +33,11 @@ public class GmailMailSender implements MailSenderPort {
 
     @Override
     public void send(String to, String subject, String htmlBody) {
+        var event = new MailSendEvent();
+        event.begin();
+        event.recipientDomain = to.substring(to.indexOf('@') + 1);
+        event.bodyBytes = htmlBody.getBytes(StandardCharsets.UTF_8).length;
+        event.outcome = "error";
         try {
             MimeMessage msg = mailSender.createMimeMessage();
             MimeMessageHelper helper = new MimeMessageHelper(msg, "UTF-8");
@@ -35,10 +47,13 @@ public class GmailMailSender implements MailSenderPort {
             helper.setSubject(subject);
             helper.setText(htmlBody, true); // HTML
             mailSender.send(msg);
+            event.outcome = "ok";
         } catch (Exception e) {
-            // Logea el motivo para depurar credenciales / bloqueo de Google
-            System.err.println("[GMAIL_MAIL_SENDER] Error enviando correo: " + e.getMessage());
-            throw new RuntimeException("MAIL_SEND_FAILED", e);
+            // El AuthError no lleva causa ni stack: el motivo (credenciales, bloqueo de Google) queda aquí
+            log.error("Error enviando correo a {}", to, e);
+            throw AuthError.MAIL_SEND_FAILED;
+        } finally {
+            event.commit();
         }
     }
 }
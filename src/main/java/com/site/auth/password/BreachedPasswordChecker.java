@@ -0,0 +1,254 @@
+package com.site.auth.password;
+
+import com.site.auth.AuthError;
+import com.site.metrics.AuthMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Rechaza contraseñas filtradas consultando un fichero local, sin llamadas externas.
+ *
+ * <p>El fichero es una cabecera de {@value #HEADER_BYTES} bytes (marca {@code SBPW}, versión y
+ * ancho de registro) seguida de una lista ordenada de registros de ancho fijo: los primeros 8 a
+ * 20 bytes del SHA-1 de cada contraseña (20 = hash completo; menos bytes ocupan menos a cambio de
+ * algún falso positivo). El ancho sale de la cabecera, no de la configuración, así que un fichero
+ * generado con otro ancho no se puede leer mal. Se mapea en memoria por
+ * trozos, sin cargarlo en el heap, y se busca por interpolación (los hashes están uniformemente
+ * distribuidos: pocas lecturas de página) con búsqueda binaria si la interpolación no converge.
+ *
+ * <p>Se vigila tamaño y fecha del fichero: al sustituirlo se mapea la versión nueva y se cambia
+ * sin parar el servicio. Hay que sustituirlo con un rename atómico: sobrescribirlo en sitio
+ * cambia (o trunca) las páginas que la versión en uso tiene mapeadas. Sin fichero, no se rechaza nada.
+ * Para generarlo desde la lista de HIBP: {@link BreachedPasswordFileBuilder}.
+ */
+@Component
+public class BreachedPasswordChecker {
+    private static final Logger log = LoggerFactory.getLogger(BreachedPasswordChecker.class);
+
+    private static final int INTERPOLATION_STEPS = 16;
+
+    /** Marca, versión del formato, bytes por registro y dos bytes a cero. */
+    static final int HEADER_BYTES = 8;
+    private static final byte[] MAGIC = {'S', 'B', 'P', 'W'};
+    private static final byte FORMAT_VERSION = 1;
+    static final int MIN_RECORD_BYTES = 8;
+    static final int MAX_RECORD_BYTES = 20;
+
+    private final Path file;
+    private final AuthMetrics metrics;
+    private final Counter rejected;
+    private final AtomicReference<HashFile> current = new AtomicReference<>();
+
+    public BreachedPasswordChecker(AuthMetrics metrics,
+                                   MeterRegistry registry,
+                                   @Value("${app.breached-passwords.file:}") String file) {
+        this.metrics = metrics;
+        this.file = file == null || file.isBlank() ? null : Path.of(file);
+        this.rejected = Counter.builder("auth.password.breached")
+                .description("Contraseñas rechazadas por aparecer en la lista de filtradas")
+                .register(registry);
+        Gauge.builder("auth.password.breached.records", current, r -> r.get() == null ? 0 : r.get().records)
+                .description("Registros del fichero de contraseñas filtradas en uso")
+                .register(registry);
+        reload();
+    }
+
+    /** Lanza {@link AuthError#PASSWORD_BREACHED} si la contraseña está en la lista. */
+    public void requireNotBreached(String rawPassword) {
+        if (current.get() == null) return;
+        if (metrics.time("password", "breach_check", () -> isBreached(rawPassword))) {
+            rejected.increment();
+            throw AuthError.PASSWORD_BREACHED;
+        }
+    }
+
+    public boolean isBreached(String rawPassword) {
+        HashFile f = current.get();
+        return f != null && f.contains(Arrays.copyOf(sha1(rawPassword), f.recordBytes));
+    }
+
+    /** Vuelve a mapear el fichero si ha cambiado (tamaño o fecha). */
+    @Scheduled(fixedDelayString = "${app.breached-passwords.check-interval-ms:60000}")
+    public void reload() {
+        if (file == null) return;
+        try {
+            if (!Files.isRegularFile(file)) {
+                if (current.get() == null) log.warn("Fichero de contraseñas filtradas no encontrado: {}", file);
+                return;
+            }
+            long size = Files.size(file);
+            long modified = Files.getLastModifiedTime(file).toMillis();
+            HashFile old = current.get();
+            if (old != null && old.size == size && old.modified == modified) return;
+
+            HashFile next = HashFile.map(file, size, modified);
+            current.set(next); // el mapeo anterior se libera cuando el GC recoja sus buffers
+            log.info("Contraseñas filtradas: {} registros de {} bytes desde {}", next.records, next.recordBytes, file);
+        } catch (IOException | IllegalStateException e) {
+            log.error("No se pudo cargar {}; se mantiene la versión anterior: {}", file, e.getMessage());
+        }
+    }
+
+    /** Cabecera para un fichero con registros de {@code recordBytes} bytes. */
+    static byte[] header(int recordBytes) {
+        if (recordBytes < MIN_RECORD_BYTES || recordBytes > MAX_RECORD_BYTES) {
+            throw new IllegalArgumentException("bytes por registro entre " + MIN_RECORD_BYTES + " y " + MAX_RECORD_BYTES);
+        }
+        byte[] h = Arrays.copyOf(MAGIC, HEADER_BYTES);
+        h[4] = FORMAT_VERSION;
+        h[5] = (byte) recordBytes;
+        return h;
+    }
+
+    static byte[] sha1(String s) {
+        try {
+            return MessageDigest.getInstance("SHA-1").digest(s.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** Fichero mapeado en trozos alineados a registro (un MappedByteBuffer no pasa de 2 GB). */
+    static final class HashFile {
+        final long records;
+        final long size;
+        final long modified;
+        final int recordBytes;
+        private final long recordsPerChunk;
+        private final MappedByteBuffer[] chunks;
+
+        private HashFile(long records, long size, long modified, int recordBytes,
+                         long recordsPerChunk, MappedByteBuffer[] chunks) {
+            this.records = records;
+            this.size = size;
+            this.modified = modified;
+            this.recordBytes = recordBytes;
+            this.recordsPerChunk = recordsPerChunk;
+            this.chunks = chunks;
+        }
+
+        static HashFile map(Path path, long size, long modified) throws IOException {
+            return map(path, size, modified, Integer.MAX_VALUE);
+        }
+
+        /** {@code maxChunkBytes} solo baja en los tests, para cruzar límites de trozo con ficheros pequeños. */
+        static HashFile map(Path path, long size, long modified, int maxChunkBytes) throws IOException {
+            try (var ch = FileChannel.open(path, StandardOpenOption.READ)) {
+                int recordBytes = readHeader(ch, size);
+                if ((size - HEADER_BYTES) % recordBytes != 0) {
+                    throw new IllegalStateException("tamaño " + size + " no encaja con registros de " + recordBytes + " bytes");
+                }
+                long records = (size - HEADER_BYTES) / recordBytes;
+                long perChunk = maxChunkBytes / recordBytes;
+                var chunks = new MappedByteBuffer[(int) ((records + perChunk - 1) / perChunk)];
+                for (int i = 0; i < chunks.length; i++) {
+                    long first = i * perChunk;
+                    long count = Math.min(perChunk, records - first);
+                    chunks[i] = ch.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES + first * recordBytes, count * recordBytes);
+                }
+                return new HashFile(records, size, modified, recordBytes, perChunk, chunks);
+            }
+        }
+
+        /** Valida la cabecera y devuelve los bytes por registro. */
+        private static int readHeader(FileChannel ch, long size) throws IOException {
+            var h = ByteBuffer.allocate(HEADER_BYTES);
+            while (size >= HEADER_BYTES && h.hasRemaining()) {
+                if (ch.read(h, h.position()) < 0) break;
+            }
+            byte[] b = h.array();
+            if (h.hasRemaining() || !Arrays.equals(b, 0, MAGIC.length, MAGIC, 0, MAGIC.length)) {
+                throw new IllegalStateException("sin cabecera SBPW: regenerarlo con BreachedPasswordFileBuilder");
+            }
+            if (b[4] != FORMAT_VERSION) {
+                throw new IllegalStateException("versión de formato " + b[4] + " no soportada");
+            }
+            int recordBytes = b[5];
+            if (recordBytes < MIN_RECORD_BYTES || recordBytes > MAX_RECORD_BYTES) {
+                throw new IllegalStateException("bytes por registro en la cabecera fuera de rango: " + recordBytes);
+            }
+            return recordBytes;
+        }
+
+        boolean contains(byte[] key) {
+            long lo = 0, hi = records - 1;
+            long k = prefix(key);
+
+            // Interpolación sobre los 8 primeros bytes, como enteros sin signo
+            for (int step = 0; step < INTERPOLATION_STEPS && lo <= hi; step++) {
+                long loKey = prefixAt(lo), hiKey = prefixAt(hi);
+                if (Long.compareUnsigned(k, loKey) < 0 || Long.compareUnsigned(k, hiKey) > 0) return false;
+                long mid = loKey == hiKey ? lo : lo + (long) (fraction(k - loKey, hiKey - loKey) * (hi - lo));
+                int c = compare(mid, key);
+                if (c == 0) return true;
+                if (c < 0) lo = mid + 1; else hi = mid - 1;
+            }
+            // Binaria para lo que quede (claves repetidas en el prefijo o distribución sesgada)
+            while (lo <= hi) {
+                long mid = (lo + hi) >>> 1;
+                int c = compare(mid, key);
+                if (c == 0) return true;
+                if (c < 0) lo = mid + 1; else hi = mid - 1;
+            }
+            return false;
+        }
+
+        /** a/b con a ≤ b, ambos sin signo, en [0, 1]. */
+        private static double fraction(long a, long b) {
+            return unsignedToDouble(a) / unsignedToDouble(b);
+        }
+
+        private static double unsignedToDouble(long v) {
+            double d = (double) (v >>> 1) * 2.0;
+            return d + (v & 1);
+        }
+
+        private long prefixAt(long index) {
+            return buffer(index).getLong(offset(index));
+        }
+
+        /** Compara el registro {@code index} con la clave: <0 si el registro es menor. */
+        private int compare(long index, byte[] key) {
+            MappedByteBuffer b = buffer(index);
+            int off = offset(index);
+            int c = Long.compareUnsigned(b.getLong(off), prefix(key));
+            for (int i = 8; c == 0 && i < recordBytes; i++) {
+                c = Integer.compare(b.get(off + i) & 0xff, key[i] & 0xff);
+            }
+            return c;
+        }
+
+        private MappedByteBuffer buffer(long index) {
+            return chunks[(int) (index / recordsPerChunk)];
+        }
+
+        private int offset(long index) {
+            return (int) (index % recordsPerChunk) * recordBytes;
+        }
+
+        private static long prefix(byte[] key) {
+            long v = 0;
+            for (int i = 0; i < 8; i++) v = (v << 8) | (key[i] & 0xff);
+            return v;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.site.auth.password;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.HexFormat;
+
+/**
+ * Convierte la lista de HIBP "SHA-1 ordered by hash" (líneas {@code HASH:COUNT}) al fichero
+ * binario de {@link BreachedPasswordChecker} (cabecera con el ancho de registro y registros
+ * ordenados). Escribe en un temporal y lo renombra al final, así la app en marcha nunca ve un
+ * fichero a medias.
+ *
+ * <pre>
+ * java -cp target/site-0.0.1-SNAPSHOT.jar -Dloader.main=com.site.auth.password.BreachedPasswordFileBuilder \
+ *      org.springframework.boot.loader.launch.PropertiesLauncher \
+ *      pwned-passwords-sha1-ordered-by-hash.txt breached.bin [record-bytes=20] [min-count=1]
+ * </pre>
+ */
+public final class BreachedPasswordFileBuilder {
+
+    private BreachedPasswordFileBuilder() {}
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Uso: <entrada HIBP> <salida> [record-bytes=20] [min-count=1]");
+            System.exit(1);
+        }
+        Path out = Path.of(args[1]);
+        int recordBytes = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        long minCount = args.length > 3 ? Long.parseLong(args[3]) : 1;
+        long written = build(Path.of(args[0]), out, recordBytes, minCount);
+        System.out.printf("%d registros de %d bytes en %s%n", written, recordBytes, out);
+    }
+
+    /** Genera {@code out} (cabecera + registros) y devuelve cuántos registros escribe. */
+    static long build(Path in, Path out, int recordBytes, long minCount) throws IOException {
+        byte[] header = BreachedPasswordChecker.header(recordBytes);
+        Path tmp = out.resolveSibling(out.getFileName() + ".tmp");
+        long written = 0;
+        byte[] previous = null;
+        var hex = HexFormat.of();
+
+        try (var reader = Files.newBufferedReader(in, StandardCharsets.US_ASCII);
+             OutputStream os = new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 20)) {
+            os.write(header);
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) continue;
+                int colon = line.indexOf(':');
+                String hash = colon < 0 ? line.trim() : line.substring(0, colon);
+                long count = colon < 0 ? Long.MAX_VALUE : Long.parseLong(line.substring(colon + 1).trim());
+                if (hash.length() != 40) throw new IOException("Línea no SHA-1: " + line);
+                if (count < minCount) continue;
+
+                byte[] rec = Arrays.copyOf(hex.parseHex(hash), recordBytes);
+                if (previous != null) {
+                    int c = Arrays.compareUnsigned(previous, rec);
+                    if (c > 0) throw new IOException("Entrada no ordenada por hash en: " + line);
+                    if (c == 0) continue; // prefijos truncados repetidos
+                }
+                os.write(rec);
+                previous = rec;
+                written++;
+            }
+        }
+        Files.move(tmp, out, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return written;
+    }
+}
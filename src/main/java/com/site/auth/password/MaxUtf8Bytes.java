@@ -0,0 +1,50 @@
+package com.site.auth.password;
+
+import jakarta.validation.Constraint;
+import jakarta.validation.ConstraintValidator;
+import jakarta.validation.ConstraintValidatorContext;
+import jakarta.validation.Payload;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Longitud máxima en bytes UTF-8, no en caracteres: bcrypt solo admite 72 bytes y rechaza con
+ * excepción cualquier contraseña nueva más larga, así que {@code @Size(max = 72)} deja pasar
+ * contraseñas con caracteres multibyte que luego acaban en un 500. {@code null} es válido.
+ */
+@Documented
+@Constraint(validatedBy = MaxUtf8Bytes.Validator.class)
+@Target({ElementType.FIELD, ElementType.PARAMETER, ElementType.RECORD_COMPONENT})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface MaxUtf8Bytes {
+    int value();
+
+    String message() default "no puede superar {value} bytes en UTF-8";
+
+    Class<?>[] groups() default {};
+
+    Class<? extends Payload>[] payload() default {};
+
+    class Validator implements ConstraintValidator<MaxUtf8Bytes, CharSequence> {
+        private int max;
+
+        @Override
+        public void initialize(MaxUtf8Bytes annotation) {
+            this.max = annotation.value();
+        }
+
+        @Override
+        public boolean isValid(CharSequence value, ConstraintValidatorContext context) {
+            if (value == null) return true;
+            // Cada char UTF-16 ocupa entre 1 y 3 bytes: solo se codifica si no lo decide la longitud
+            if (value.length() > max) return false;
+            if (value.length() * 3 <= max) return true;
+            return value.toString().getBytes(StandardCharsets.UTF_8).length <= max;
+        }
+    }
+}
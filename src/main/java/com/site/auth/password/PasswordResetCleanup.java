@@ -1,10 +1,12 @@
 package com.site.auth.password;
 
+import com.site.auth.user.UserShards;
+import com.site.jfr.ResetCleanupEvent;
+import com.site.metrics.AuthMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
 
@@ -12,14 +14,28 @@ import java.time.Instant;
 public class PasswordResetCleanup {
     private static final Logger log = LoggerFactory.getLogger(PasswordResetCleanup.class);
     private final PasswordResetTokenRepository repo;
+    private final AuthMetrics metrics;
+    private final UserShards shards;
 
-    public PasswordResetCleanup(PasswordResetTokenRepository repo) { this.repo = repo; }
+    public PasswordResetCleanup(PasswordResetTokenRepository repo, AuthMetrics metrics, UserShards shards) {
+        this.repo = repo;
+        this.shards = shards;
+        this.metrics = metrics;
+    }
 
-    /** Cada hora (zona Madrid). */
-    @Transactional
+    /** Cada hora (zona Madrid). Una transacción por shard (deleteExpired abre la suya). */
     @Scheduled(cron = "0 0 * * * *", zone = "Europe/Madrid")
     public void clean() {
-        int removed = repo.deleteExpired(Instant.now());
+        var event = new ResetCleanupEvent();
+        event.begin();
+        var now = Instant.now();
+        int removed = 0;
+        for (int shard = 0; shard < shards.count(); shard++) {
+            removed += shards.onShard(shard, () -> repo.deleteExpired(now));
+        }
+        event.removed = removed;
+        event.commit();
+        metrics.cleanupRemoved(removed);
         if (removed > 0) log.info("PasswordResetCleanup: eliminados {} tokens caducados", removed);
         else log.debug("PasswordResetCleanup: nada que eliminar.");
     }
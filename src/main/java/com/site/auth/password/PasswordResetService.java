@@ -4,8 +4,14 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.site.audit.AuditLog;
+import com.site.auth.AuthError;
+import com.site.auth.RequestCooldown;
 import com.site.auth.user.User;
 import com.site.auth.user.UserService;
+import com.site.auth.user.UserShards;
+import com.site.jfr.TokenRedeemEvent;
+import com.site.metrics.AuthMetrics;
 
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
@@ -14,63 +20,117 @@ import java.time.Duration;
 import java.time.Instant;
 import java.util.Base64;
 
+import static com.site.audit.AuditEventType.*;
+
 @Service
 @Transactional
 public class PasswordResetService {
 
     private final PasswordResetTokenRepository repo;     // lo creamos después
     private final UserService userService;
+    private final AuthMetrics metrics;
+    private final AuditLog audit;
+    private final RequestCooldown cooldown;
+    private final BreachedPasswordChecker breached;
+    private final UserShards shards;
     private final int expirationMinutes;
     private final SecureRandom random = new SecureRandom();
 
     public PasswordResetService(PasswordResetTokenRepository repo,
                                 UserService userService,
+                                AuthMetrics metrics,
+                                AuditLog audit,
+                                RequestCooldown cooldown,
+                                BreachedPasswordChecker breached,
+                                UserShards shards,
                                 @Value("${app.password-reset.expiration-minutes:30}") int expirationMinutes) {
         this.repo = repo;
         this.userService = userService;
+        this.metrics = metrics;
+        this.audit = audit;
+        this.cooldown = cooldown;
+        this.breached = breached;
+        this.shards = shards;
         this.expirationMinutes = expirationMinutes;
     }
 
-    /** Solicita reset: siempre 204 en el controller. No revela si el email existe. */
+    /**
+     * Solicita reset: siempre 204 en el controller. No revela si el email existe. Dentro de la
+     * ventana de enfriamiento se ignora: la solicitud anterior sigue valiendo.
+     */
     public void requestReset(String email) {
-        userService.findByEmailIgnoreCase(email).ifPresent(user -> {
-            // invalidar solicitudes previas del usuario (simple: borrar)
-            repo.deleteAllByUserId(user.getId());
+        var found = userService.findByEmailIgnoreCase(email); // fija el shard del usuario
+        audit.record(RESET_REQUESTED, found.map(User::getId).orElse(null), email,
+                found.isPresent() ? null : "UNKNOWN_EMAIL");
+        found.ifPresent(user -> {
+            if (!cooldown.tryAcquire(RequestCooldown.Kind.RESET, user.getId(),
+                    cutoff -> repo.existsByUser_IdAndCreatedAtAfter(user.getId(), cutoff))) {
+                return;
+            }
+            try {
+                issueToken(user);
+            } catch (RuntimeException e) {
+                cooldown.release(RequestCooldown.Kind.RESET, user.getId());
+                throw e;
+            }
+        });
+    }
 
-            String plain = generateOpaqueToken();
-            String hash = sha256Url(plain);
+    private void issueToken(User user) {
+        // invalidar solicitudes previas del usuario (simple: borrar)
+        repo.deleteAllByUserId(user.getId());
 
-            var prt = new PasswordResetToken();
-            prt.setUser(user);
-            prt.setTokenHash(hash);
-            prt.setExpiresAt(Instant.now().plus(Duration.ofMinutes(expirationMinutes)));
-            repo.save(prt);
+        String plain = shards.tagToken(generateOpaqueToken());
+        String hash = sha256Url(plain);
 
-            // Aquí enviarías el email con el "plain"
-            // e.g., mailService.sendPasswordReset(user.getEmail(), plain);
-        });
+        var prt = new PasswordResetToken();
+        prt.setUser(user);
+        prt.setTokenHash(hash);
+        prt.setExpiresAt(Instant.now().plus(Duration.ofMinutes(expirationMinutes)));
+        repo.save(prt);
+
+        // Aquí enviarías el email con el "plain"
+        // e.g., mailService.sendPasswordReset(user.getEmail(), plain);
     }
 
     /** Aplica el cambio de contraseña usando un token de un solo uso. */
     public void reset(String tokenPlain, String newPassword) {
+        var event = TokenRedeemEvent.start("reset");
+        if (!shards.bindToken(tokenPlain)) throw fail(event, AuthError.RESET_TOKEN_INVALID);
         String hash = sha256Url(tokenPlain);
         var prt = repo.findByTokenHashFetchUser(hash)
-                .orElseThrow(() -> new RuntimeException("RESET_TOKEN_INVALID"));
+                .orElseThrow(() -> fail(event, AuthError.RESET_TOKEN_INVALID));
 
         if (prt.isUsed() || prt.getExpiresAt().isBefore(Instant.now())) {
-            throw new RuntimeException("RESET_TOKEN_EXPIRED");
+            throw fail(event, AuthError.RESET_TOKEN_EXPIRED);
+        }
+
+        try {
+            breached.requireNotBreached(newPassword);
+        } catch (AuthError e) {
+            throw fail(event, e);
         }
 
         User u = prt.getUser();
-        userService.forceChangePassword(u.getId(), newPassword);
+        userService.forceChangePassword(u, newPassword);
 
         // Marcar token como usado
         prt.setUsed(true);
         repo.save(prt);
+        metrics.tokenOutcome("reset", "OK");
+        audit.record(RESET_OK, u.getId(), null);
+        event.finish("OK");
     }
 
     // --- utilidades privadas ---
 
+    private AuthError fail(TokenRedeemEvent event, AuthError error) {
+        metrics.tokenOutcome("reset", error.code());
+        audit.record(RESET_FAILED, null, error.code());
+        event.finish(error.code());
+        return error;
+    }
+
     private String generateOpaqueToken() {
         byte[] bytes = new byte[48]; // 384 bits
         random.nextBytes(bytes);
@@ -20,6 +20,8 @@ public interface PasswordResetTokenRepository extends JpaRepository<PasswordRese
     @Query("delete from PasswordResetToken t where t.user.id = :userId")
     void deleteAllByUserId(@Param("userId") long userId);
 
+    boolean existsByUser_IdAndCreatedAtAfter(Long userId, Instant cutoff);
+
     // Limpieza: borra tokens caducados o ya usados.
     @Transactional
     @Modifying(clearAutomatically = true, flushAutomatically = true)
@@ -0,0 +1,131 @@
+package com.site.auth.user;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tabla {@code user_directory} del shard 0. Va directa al pool del shard 0 y en autocommit: no
+ * participa en la transacción del shard del usuario (que puede ser otro).
+ */
+class ShardDirectory {
+
+    /** Resultado de una reserva que choca con otra fila. */
+    enum Conflict { USERNAME, EMAIL }
+
+    record Entry(String username, String email, Long userId, int shard) {}
+
+    private final JdbcTemplate jdbc;
+    private final String table;
+
+    ShardDirectory(DataSource shard0, String schema) {
+        this.jdbc = new JdbcTemplate(shard0);
+        this.table = schema + ".user_directory";
+    }
+
+    /** Inserta la fila del alta (sin user_id todavía); null si ha entrado, o con qué choca. */
+    Conflict reserve(String username, String email, int shard) {
+        try {
+            jdbc.update("insert into " + table + " (username, email, shard) values (?, ?, ?)", username, email, shard);
+            return null;
+        } catch (DuplicateKeyException e) {
+            Boolean taken = jdbc.queryForObject("select exists(select 1 from " + table + " where username = ?)",
+                    Boolean.class, username);
+            return Boolean.TRUE.equals(taken) ? Conflict.USERNAME : Conflict.EMAIL;
+        }
+    }
+
+    void assign(String username, long userId) {
+        jdbc.update("update " + table + " set user_id = ? where username = ?", userId, username);
+    }
+
+    /** Reservas sin user_id de hace más de {@code olderThan}, las más viejas primero. */
+    List<Entry> staleReservations(Duration olderThan, int limit) {
+        return jdbc.query("select username, email, user_id, shard from " + table
+                        + " where user_id is null and reserved_at < now() - ? * interval '1 millisecond'"
+                        + " order by reserved_at limit ?",
+                ShardDirectory::entry, olderThan.toMillis(), limit);
+    }
+
+    /** Las de {@link #staleReservations(Duration, int)} que chocan con este usuario o email. */
+    List<Entry> staleReservations(String username, String email, Duration olderThan) {
+        return jdbc.query("select username, email, user_id, shard from " + table
+                        + " where (username = ? or email = ?) and user_id is null"
+                        + " and reserved_at < now() - ? * interval '1 millisecond'",
+                ShardDirectory::entry, username, email, olderThan.toMillis());
+    }
+
+    /**
+     * Cierra una reserva caducada: le pone el id si el alta llegó a confirmarse o, con
+     * {@code userId} null, la borra. False si otro la ha cerrado antes.
+     */
+    boolean resolve(String username, Long userId, Duration olderThan) {
+        String stale = " where username = ? and user_id is null and reserved_at < now() - ? * interval '1 millisecond'";
+        return userId != null
+                ? jdbc.update("update " + table + " set user_id = ?" + stale, userId, username, olderThan.toMillis()) > 0
+                : jdbc.update("delete from " + table + stale, username, olderThan.toMillis()) > 0;
+    }
+
+    /** Deshace una reserva cuyo alta no llegó a confirmarse. */
+    void release(String username) {
+        jdbc.update("delete from " + table + " where username = ? and user_id is null", username);
+    }
+
+    /** Por usuario o email normalizado; si coinciden dos filas gana la del usuario (como el login). */
+    Entry findByLogin(String key) {
+        var rows = jdbc.query("select username, email, user_id, shard from " + table
+                        + " where username = ? or email = ? order by (username = ?) desc limit 1",
+                ShardDirectory::entry, key, key, key);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    Map<Long, Integer> shardsOf(Collection<? extends Long> userIds) {
+        var out = new HashMap<Long, Integer>();
+        jdbc.query("select user_id, shard from " + table + " where user_id = any(?)",
+                rs -> { out.put(rs.getLong(1), rs.getInt(2)); },
+                (Object) userIds.toArray(Long[]::new));
+        return out;
+    }
+
+    Integer shardOf(long userId) {
+        var rows = jdbc.queryForList("select shard from " + table + " where user_id = ?", Integer.class, userId);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    void move(long userId, int shard) {
+        jdbc.update("update " + table + " set shard = ? where user_id = ?", shard, userId);
+    }
+
+    /** Alta en bloque de usuarios ya existentes en un shard; devuelve cuántos faltaban. */
+    int addMissing(List<Entry> entries) {
+        if (entries.isEmpty()) return 0;
+        var sql = new StringBuilder("insert into ").append(table).append(" (username, email, user_id, shard) values ");
+        Object[] args = new Object[entries.size() * 4];
+        int a = 0;
+        for (int i = 0; i < entries.size(); i++) {
+            if (i > 0) sql.append(',');
+            sql.append("(?,?,?,?)");
+            var e = entries.get(i);
+            args[a++] = e.username();
+            args[a++] = e.email();
+            args[a++] = e.userId();
+            args[a++] = e.shard();
+        }
+        sql.append(" on conflict do nothing");
+        return jdbc.update(sql.toString(), args);
+    }
+
+    private static Entry entry(ResultSet rs, int row) throws SQLException {
+        long id = rs.getLong("user_id");
+        return new Entry(rs.getString("username"), rs.getString("email"),
+                rs.wasNull() ? null : id, rs.getInt("shard"));
+    }
+}
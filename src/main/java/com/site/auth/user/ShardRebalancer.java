@@ -0,0 +1,227 @@
+package com.site.auth.user;
+
+import com.site.auth.AuthError;
+import com.site.datasource.ShardDataSources;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Rebalanceo en caliente: recorre cada shard por lotes y mueve al shard que le toca según
+ * {@link UserShards#placement} a cada usuario que no esté en él (p. ej. tras añadir un shard).
+ *
+ * <p>Por usuario: bloquea la fila en origen ({@code for update}), la copia al destino con el
+ * mismo id, cambia el directorio y la borra del origen. Mientras tanto las lecturas siguen
+ * viendo la fila de origen; una escritura concurrente espera al bloqueo y falla por versión
+ * (no se pierde en silencio). Los usuarios con un token pendiente y vigente se saltan en esta
+ * pasada: el shard va en el token y dejaría de encontrarse. Otras instancias pueden tardar el
+ * TTL de su caché de directorio en ver el cambio. Repetible: si se corta a mitad, la siguiente
+ * pasada termina el trabajo.
+ *
+ * <p>Se mueven el usuario, sus tokens y su {@code user_activity}; {@code auth_audit} no: la
+ * auditoría de todos los usuarios se escribe siempre en el shard 0 (el escritor no fija shard),
+ * y como el id se conserva, sus filas siguen apuntando al usuario después de moverlo.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.sharding", name = "enabled", havingValue = "true")
+public class ShardRebalancer {
+    private static final Logger log = LoggerFactory.getLogger(ShardRebalancer.class);
+
+    public record Report(int scanned, int moved, int skippedPendingTokens, int cleanedUp) {}
+
+    public record SyncReport(int added, int reclaimed) {}
+
+    private record Candidate(long id, String username) {}
+
+    private record Row(long id, long version, String username, String email, String passwordHash, boolean enabled,
+                       OffsetDateTime createdAt, OffsetDateTime updatedAt, int level) {}
+
+    private final ShardDataSources shards;
+    private final UserShards userShards;
+    private final String schema;
+    private final List<JdbcTemplate> jdbc = new ArrayList<>();
+    private final List<TransactionTemplate> tx = new ArrayList<>();
+    private final ReentrantLock running = new ReentrantLock();
+    private final Counter movedCounter;
+
+    public ShardRebalancer(ShardDataSources shards,
+                           UserShards userShards,
+                           MeterRegistry registry,
+                           @Value("${spring.jpa.properties.hibernate.default_schema}") String schema) {
+        this.shards = shards;
+        this.userShards = userShards;
+        this.schema = schema;
+        for (int i = 0; i < shards.count(); i++) {
+            jdbc.add(new JdbcTemplate(shards.get(i)));
+            var t = new TransactionTemplate(new DataSourceTransactionManager(shards.get(i)));
+            t.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            tx.add(t);
+        }
+        this.movedCounter = Counter.builder("auth.shard.users.moved")
+                .description("Usuarios movidos de shard por el rebalanceo")
+                .register(registry);
+    }
+
+    /** Una pasada sobre todos los shards; {@code maxMoves} acota el trabajo de cada llamada. */
+    public Report rebalance(int batchSize, int maxMoves) {
+        if (!running.tryLock()) throw AuthError.REBALANCE_RUNNING;
+        try {
+            int scanned = 0, moved = 0, skipped = 0, cleaned = 0;
+            for (int from = 0; from < shards.count() && moved < maxMoves; from++) {
+                long after = 0;
+                while (moved < maxMoves) {
+                    var batch = jdbc.get(from).query("select id, username from " + schema
+                                    + ".users where id > ? order by id limit ?",
+                            (rs, i) -> new Candidate(rs.getLong(1), rs.getString(2)), after, batchSize);
+                    if (batch.isEmpty()) break;
+                    after = batch.get(batch.size() - 1).id();
+                    scanned += batch.size();
+
+                    var current = userShards.directory().shardsOf(batch.stream().map(Candidate::id).toList());
+                    for (int i = 0; i < batch.size() && moved < maxMoves; i++) {
+                        long id = batch.get(i).id();
+                        Integer dir = current.get(id);
+                        if (dir == null) continue; // alta sin confirmar o directorio sin sincronizar
+                        if (dir != from) {
+                            // Copia ya confirmada en otro shard (pasada anterior cortada): sobra la de aquí
+                            if (deleteLeftover(from, id)) cleaned++;
+                            continue;
+                        }
+                        int to = userShards.placement(UserShards.normalize(batch.get(i).username()));
+                        if (to == from) continue;
+                        switch (move(id, from, to)) {
+                            case MOVED -> moved++;
+                            case PENDING_TOKENS -> skipped++;
+                            case GONE -> {}
+                        }
+                    }
+                }
+            }
+            var report = new Report(scanned, moved, skipped, cleaned);
+            log.info("Rebalanceo: {}", report);
+            return report;
+        } finally {
+            running.unlock();
+        }
+    }
+
+    private enum Outcome { MOVED, PENDING_TOKENS, GONE }
+
+    private Outcome move(long id, int from, int to) {
+        Outcome outcome = tx.get(from).execute(status -> {
+            var src = jdbc.get(from);
+            var rows = src.query("select id, version, username, email, password_hash, enabled, created_at, updated_at,"
+                            + " level from " + schema + ".users where id = ? for update",
+                    (rs, i) -> new Row(rs.getLong(1), rs.getLong(2), rs.getString(3), rs.getString(4), rs.getString(5),
+                            rs.getBoolean(6), rs.getObject(7, OffsetDateTime.class), rs.getObject(8, OffsetDateTime.class),
+                            rs.getInt(9)), id);
+            if (rows.isEmpty()) return Outcome.GONE;
+            var u = rows.get(0);
+
+            Boolean pending = src.queryForObject("select exists(select 1 from " + schema
+                    + ".email_verification_tokens where user_id = ? and used_at is null and expires_at > now())"
+                    + " or exists(select 1 from " + schema
+                    + ".password_reset_tokens where user_id = ? and not used and expires_at > now())",
+                    Boolean.class, id, id);
+            if (Boolean.TRUE.equals(pending)) return Outcome.PENDING_TOKENS;
+
+            var activity = src.queryForList("select last_login_at, last_seen_at from " + schema
+                    + ".user_activity where user_id = ?", id);
+
+            // Destino (transacción propia): idempotente por si quedó una copia de un intento anterior
+            tx.get(to).executeWithoutResult(t -> {
+                var dst = jdbc.get(to);
+                dst.update("insert into " + schema + ".users (id, version, username, email, password_hash, enabled,"
+                                + " created_at, updated_at, level) values (?, ?, ?, ?, ?, ?, ?, ?, ?)"
+                                + " on conflict (id) do update set version = excluded.version,"
+                                + " password_hash = excluded.password_hash, enabled = excluded.enabled,"
+                                + " updated_at = excluded.updated_at, level = excluded.level",
+                        u.id(), u.version(), u.username(), u.email(), u.passwordHash(), u.enabled(),
+                        u.createdAt(), u.updatedAt(), u.level());
+                for (var a : activity) {
+                    dst.update("insert into " + schema + ".user_activity as a (user_id, last_login_at, last_seen_at)"
+                                    + " values (?, ?, ?) on conflict (user_id) do update set"
+                                    + " last_login_at = greatest(a.last_login_at, excluded.last_login_at),"
+                                    + " last_seen_at = greatest(a.last_seen_at, excluded.last_seen_at)",
+                            id, a.get("last_login_at"), a.get("last_seen_at"));
+                }
+            });
+
+            // A partir de aquí manda el destino; si falla el borrado, la próxima pasada lo limpia
+            userShards.directory().move(id, to);
+            userShards.forget(id, u.username(), u.email());
+            deleteUser(src, id);
+            return Outcome.MOVED;
+        });
+        if (outcome == Outcome.MOVED) {
+            movedCounter.increment();
+            log.debug("Usuario {} movido del shard {} al {}", id, shards.name(from), shards.name(to));
+        }
+        return outcome;
+    }
+
+    private boolean deleteLeftover(int shard, long id) {
+        return Boolean.TRUE.equals(tx.get(shard).execute(status -> deleteUser(jdbc.get(shard), id) > 0));
+    }
+
+    /** Tokens (ya usados o caducados), actividad y la fila, en ese orden por las FK. */
+    private int deleteUser(JdbcTemplate src, long id) {
+        src.update("delete from " + schema + ".email_verification_tokens where user_id = ?", id);
+        src.update("delete from " + schema + ".password_reset_tokens where user_id = ?", id);
+        src.update("delete from " + schema + ".user_activity where user_id = ?", id);
+        return src.update("delete from " + schema + ".users where id = ?", id);
+    }
+
+    /**
+     * Cierra las reservas de alta caducadas (ver {@link UserShards#reclaimStaleReservations}) y da
+     * de alta en el directorio a los usuarios que falten (p. ej. registrados mientras el sharding
+     * estaba desactivado).
+     */
+    public SyncReport syncDirectory(int batchSize) {
+        if (!running.tryLock()) throw AuthError.REBALANCE_RUNNING;
+        try {
+            // Primero las reservas: una fila sin user_id taparía el alta del usuario que sí existe
+            int reclaimed = 0, n;
+            do {
+                n = userShards.reclaimStaleReservations(batchSize);
+                reclaimed += n;
+            } while (n == batchSize);
+            return new SyncReport(addMissingToDirectory(batchSize), reclaimed);
+        } finally {
+            running.unlock();
+        }
+    }
+
+    private int addMissingToDirectory(int batchSize) {
+        int added = 0;
+        for (int shard = 0; shard < shards.count(); shard++) {
+            final int s = shard;
+            long after = 0;
+            while (true) {
+                var batch = jdbc.get(s).query("select id, username, email from " + schema
+                                + ".users where id > ? order by id limit ?",
+                        (rs, i) -> new ShardDirectory.Entry(UserShards.normalize(rs.getString(2)),
+                                UserShards.normalize(rs.getString(3)), rs.getLong(1), s),
+                        after, batchSize);
+                if (batch.isEmpty()) break;
+                after = batch.get(batch.size() - 1).userId();
+                added += userShards.directory().addMissing(batch);
+            }
+        }
+        if (added > 0) log.info("Directorio: añadidos {} usuarios", added);
+        return added;
+    }
+}
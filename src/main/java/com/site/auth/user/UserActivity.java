@@ -0,0 +1,6 @@
+package com.site.auth.user;
+
+import java.time.Instant;
+
+/** Marcas de actividad de un usuario; cualquiera puede ser null si aún no hay dato. */
+public record UserActivity(Long userId, Instant lastLoginAt, Instant lastSeenAt) {}
@@ -0,0 +1,169 @@
+package com.site.auth.user;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Último login y última actividad con escritura diferida: cada evento solo fusiona (máximo)
+ * en un mapa en memoria y {@link #flush()} lo vuelca periódicamente con un upsert multi-fila
+ * en {@code user_activity}. Como mucho una escritura por usuario y flush, sea cual sea el
+ * ritmo de peticiones, y sin tocar la fila de {@code users}.
+ */
+@Component
+public class UserActivityTracker {
+    private static final Logger log = LoggerFactory.getLogger(UserActivityTracker.class);
+
+    /** Epoch ms; 0 = sin dato. */
+    private record Pending(long lastLogin, long lastSeen) {
+        Pending max(Pending o) {
+            return new Pending(Math.max(lastLogin, o.lastLogin), Math.max(lastSeen, o.lastSeen));
+        }
+    }
+
+    private final ConcurrentHashMap<Long, Pending> pending = new ConcurrentHashMap<>();
+    private final JdbcTemplate jdbc;
+    private final UserShards shards;
+    private final String schema;
+    private final boolean enabled;
+    private final int batchSize;
+    private final Counter flushed;
+
+    public UserActivityTracker(JdbcTemplate jdbc,
+                               UserShards shards,
+                               MeterRegistry registry,
+                               @Value("${spring.jpa.properties.hibernate.default_schema}") String schema,
+                               @Value("${app.user-activity.enabled:true}") boolean enabled,
+                               @Value("${app.user-activity.batch-size:500}") int batchSize) {
+        this.jdbc = jdbc;
+        this.shards = shards;
+        this.schema = schema;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.flushed = Counter.builder("auth.user_activity.flushed")
+                .description("Filas de user_activity escritas")
+                .register(registry);
+        Gauge.builder("auth.user_activity.pending", pending, Map::size)
+                .description("Usuarios con actividad pendiente de escribir")
+                .register(registry);
+    }
+
+    public void recordLogin(Long userId) {
+        if (!enabled || userId == null) return;
+        long now = System.currentTimeMillis();
+        pending.merge(userId, new Pending(now, now), Pending::max);
+    }
+
+    public void recordSeen(Long userId) {
+        if (!enabled || userId == null) return;
+        pending.merge(userId, new Pending(0, System.currentTimeMillis()), Pending::max);
+    }
+
+    /** Lo guardado más lo pendiente de escribir. */
+    public Optional<UserActivity> find(Long userId) {
+        var rows = shards.onUser(userId, () -> jdbc.query("select last_login_at, last_seen_at from " + schema
+                        + ".user_activity where user_id = ?",
+                (rs, i) -> new Pending(millis(rs.getObject(1, OffsetDateTime.class)),
+                        millis(rs.getObject(2, OffsetDateTime.class))),
+                userId));
+        Pending p = rows.isEmpty() ? null : rows.get(0);
+        Pending mem = pending.get(userId);
+        if (mem != null) p = p == null ? mem : p.max(mem);
+        if (p == null) return Optional.empty();
+        return Optional.of(new UserActivity(userId, instant(p.lastLogin), instant(p.lastSeen)));
+    }
+
+    @Scheduled(fixedDelayString = "${app.user-activity.flush-interval-ms:10000}")
+    public void flush() {
+        if (pending.isEmpty()) return;
+
+        // Sacar del mapa antes de escribir: lo que llegue durante el flush va al siguiente
+        var drained = new ArrayList<Map.Entry<Long, Pending>>(pending.size());
+        for (Long id : pending.keySet()) {
+            Pending p = pending.remove(id);
+            if (p != null) drained.add(Map.entry(id, p));
+        }
+        drained.sort(Map.Entry.comparingByKey()); // mismo orden de bloqueo entre instancias
+
+        // Cada fila va al shard de su usuario (sin sharding, todo al 0)
+        Map<Long, Integer> shardOf;
+        try {
+            shardOf = shards.shardsOf(drained.stream().map(Map.Entry::getKey).toList());
+        } catch (RuntimeException e) {
+            drained.forEach(en -> pending.merge(en.getKey(), en.getValue(), Pending::max));
+            log.warn("No se pudo resolver el shard de {} usuarios: {}", drained.size(), e.getMessage());
+            return;
+        }
+        var byShard = new TreeMap<Integer, List<Map.Entry<Long, Pending>>>();
+        for (var en : drained) {
+            byShard.computeIfAbsent(shardOf.get(en.getKey()), k -> new ArrayList<>()).add(en);
+        }
+        byShard.forEach((shard, rows) -> {
+            for (int from = 0; from < rows.size(); from += batchSize) {
+                var batch = rows.subList(from, Math.min(from + batchSize, rows.size()));
+                try {
+                    shards.onShard(shard, () -> upsert(batch));
+                    flushed.increment(batch.size());
+                } catch (RuntimeException e) {
+                    // Devolver al mapa: se reintenta en el siguiente flush
+                    batch.forEach(en -> pending.merge(en.getKey(), en.getValue(), Pending::max));
+                    log.warn("No se pudo escribir la actividad de {} usuarios: {}", batch.size(), e.getMessage());
+                }
+            }
+        });
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        flush();
+    }
+
+    private int upsert(List<Map.Entry<Long, Pending>> batch) {
+        var sql = new StringBuilder("insert into ").append(schema)
+                .append(".user_activity as a (user_id, last_login_at, last_seen_at) values ");
+        Object[] args = new Object[batch.size() * 3];
+        int a = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            if (i > 0) sql.append(',');
+            sql.append("(?,?,?)");
+            var en = batch.get(i);
+            args[a++] = en.getKey();
+            args[a++] = timestamp(en.getValue().lastLogin);
+            args[a++] = timestamp(en.getValue().lastSeen);
+        }
+        // greatest() ignora NULL: un "seen" nunca borra el último login
+        sql.append(" on conflict (user_id) do update set")
+                .append(" last_login_at = greatest(a.last_login_at, excluded.last_login_at),")
+                .append(" last_seen_at = greatest(a.last_seen_at, excluded.last_seen_at)");
+        return jdbc.update(sql.toString(), args);
+    }
+
+    private static OffsetDateTime timestamp(long millis) {
+        return millis == 0 ? null : OffsetDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneOffset.UTC);
+    }
+
+    private static long millis(OffsetDateTime t) {
+        return t == null ? 0 : t.toInstant().toEpochMilli();
+    }
+
+    private static Instant instant(long millis) {
+        return millis == 0 ? null : Instant.ofEpochMilli(millis);
+    }
+}
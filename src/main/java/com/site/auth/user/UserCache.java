@@ -0,0 +1,87 @@
+package com.site.auth.user;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.function.Function;
+
+/**
+ * Caché acotada de {@link UserSnapshot} por id, con índice secundario por email normalizado.
+ * Los fallos concurrentes para el mismo id se resuelven con una sola carga, y un {@link #evict}
+ * que coincide con una carga espera a que termine y la descarta. No guarda el hash
+ * de la contraseña: el login sigue leyendo la fila.
+ *
+ * <p>No hay índice por nombre de usuario a propósito: la única búsqueda por nombre es el login,
+ * que necesita el hash (y la entidad para firmar el JWT) y por tanto la fila; un índice no le
+ * ahorraría la consulta. El de email existe porque el reenvío de verificación solo necesita el
+ * snapshot.
+ */
+@Component
+public class UserCache {
+
+    private final Cache<Long, UserSnapshot> byId;
+    private final Cache<String, Long> idByEmail;
+
+    public UserCache(@Value("${app.user-cache.maximum-size:10000}") long maximumSize,
+                     @Value("${app.user-cache.ttl-seconds:300}") long ttlSeconds) {
+        this.byId = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+        this.idByEmail = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+    }
+
+    /** Devuelve el snapshot o lo carga (una sola carga por id aunque haya varias peticiones). */
+    public UserSnapshot get(Long id, Function<Long, UserSnapshot> loader) {
+        return byId.get(id, k -> {
+            UserSnapshot s = loader.apply(k);
+            if (s != null) index(s);
+            return s;
+        });
+    }
+
+    /**
+     * Busca por email (sin distinguir mayúsculas). En un fallo resuelve primero el id (una sola
+     * carga por email) y el snapshot pasa por {@link #get}: nunca se escribe uno cargado fuera de
+     * la caché, que podría llegar después del {@link #evict} de un commit y quedarse todo el TTL.
+     */
+    public UserSnapshot getByEmail(String email, Function<String, Long> idLoader, Function<Long, UserSnapshot> loader) {
+        Long id = idByEmail.get(emailKey(email), k -> idLoader.apply(email));
+        return id == null ? null : get(id, loader);
+    }
+
+    /** Invalida ya y de nuevo tras el commit (evita que una lectura concurrente reponga datos viejos). */
+    public void evict(User u) {
+        evictNow(u);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evictNow(u);
+                }
+            });
+        }
+    }
+
+    private void evictNow(User u) {
+        if (u.getId() != null) byId.invalidate(u.getId());
+        if (u.getEmail() != null) idByEmail.invalidate(emailKey(u.getEmail()));
+    }
+
+    private void index(UserSnapshot s) {
+        idByEmail.put(emailKey(s.email()), s.id());
+    }
+
+    private static String emailKey(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -1,80 +1,196 @@
 package com.site.auth.user;
 
+import com.site.audit.AuditLog;
+import com.site.auth.AuthError;
+import com.site.auth.password.BreachedPasswordChecker;
+import com.site.metrics.AuthMetrics;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.Optional;
+import java.util.function.Supplier;
+
+import static com.site.audit.AuditEventType.*;
 
 @Service
 public class UserService {
     private final UserRepository userRepo;
     private final PasswordEncoder encoder;
-
+    private final UserCache cache;
+    private final AuthMetrics metrics;
+    private final AuditLog audit;
+    private final UserActivityTracker activity;
+    private final BreachedPasswordChecker breached;
+    private final UserShards shards;
+    private final TransactionTemplate primaryRead;
 
     public UserService(UserRepository userRepo,
-                       PasswordEncoder encoder) {
+                       PasswordEncoder encoder,
+                       UserCache cache,
+                       AuthMetrics metrics,
+                       AuditLog audit,
+                       UserActivityTracker activity,
+                       BreachedPasswordChecker breached,
+                       UserShards shards,
+                       PlatformTransactionManager txManager) {
         this.userRepo = userRepo;
         this.encoder = encoder;
+        this.cache = cache;
+        this.metrics = metrics;
+        this.audit = audit;
+        this.activity = activity;
+        this.breached = breached;
+        this.shards = shards;
+        // Sin readOnly a propósito: con réplicas, lo que entra en la caché se lee del primario
+        this.primaryRead = new TransactionTemplate(txManager);
     }
 
     @Transactional
     public User register(String username, String email, String rawPassword) {
-        if (userRepo.existsByUsername(username)) {
-            throw new RuntimeException("USERNAME_EXISTS");
+        return register(username, email, rawPassword, true);
+    }
+
+    /**
+     * Alta de la seed: su contraseña es conocida (y filtrada) a propósito, así que no pasa por
+     * la lista de contraseñas comprometidas; si no, con el fichero configurado no arrancaría.
+     */
+    @Transactional
+    public User registerSeed(String username, String email, String rawPassword) {
+        return register(username, email, rawPassword, false);
+    }
+
+    private User register(String username, String email, String rawPassword, boolean checkBreached) {
+        // Con sharding la unicidad es global y la da el directorio; el alta va al shard reservado
+        var reservation = shards.reserve(username, email);
+        if (!shards.enabled()) {
+            if (userRepo.existsByUsername(username)) {
+                throw AuthError.USERNAME_EXISTS;
+            }
+            if (userRepo.existsByEmail(email)) {
+                throw AuthError.EMAIL_EXISTS;
+            }
         }
-        if (userRepo.existsByEmail(email)) {
-            throw new RuntimeException("EMAIL_EXISTS");
+        if (checkBreached) {
+            breached.requireNotBreached(rawPassword);
         }
 
         User u = new User();
         u.setUsername(username);
         u.setEmail(email);
-        u.setPasswordHash(encoder.encode(rawPassword));
-        return userRepo.save(u);
+        u.setPasswordHash(metrics.time("register", "bcrypt", () -> encoder.encode(rawPassword)));
+        var saved = metrics.time("register", "user_insert", () -> userRepo.save(u));
+        reservation.assign(saved.getId());
+        cache.evict(saved);
+        return saved;
     }
 
     @Transactional(readOnly = true)
     public User authenticate(String usernameOrEmail, String rawPassword) {
-        var user = userRepo.findByUsername(usernameOrEmail)
-                .or(() -> userRepo.findByEmail(usernameOrEmail))
-                .orElseThrow(() -> new RuntimeException("INVALID_CREDENTIALS"));
+        var user = metrics.time("login", "lookup", () -> shards.bindLogin(usernameOrEmail)
+                ? userRepo.findByUsername(usernameOrEmail).or(() -> userRepo.findByEmail(usernameOrEmail))
+                : Optional.<User>empty())
+                .orElse(null);
+        if (user == null) {
+            audit.record(LOGIN_FAILED, null, usernameOrEmail, AuthError.INVALID_CREDENTIALS.code());
+            throw AuthError.INVALID_CREDENTIALS;
+        }
 
-        if (!encoder.matches(rawPassword, user.getPasswordHash())) {
-            throw new RuntimeException("INVALID_CREDENTIALS");
+        if (!metrics.time("login", "bcrypt", () -> encoder.matches(rawPassword, user.getPasswordHash()))) {
+            audit.record(LOGIN_FAILED, user.getId(), usernameOrEmail, AuthError.INVALID_CREDENTIALS.code());
+            throw AuthError.INVALID_CREDENTIALS;
         }
         if (!user.isEnabled()) {
-            throw new RuntimeException("EMAIL_NOT_VERIFIED");
+            audit.record(LOGIN_FAILED, user.getId(), usernameOrEmail, AuthError.EMAIL_NOT_VERIFIED.code());
+            throw AuthError.EMAIL_NOT_VERIFIED;
         }
 
+        audit.record(LOGIN_OK, user.getId(), usernameOrEmail, null);
+        activity.recordLogin(user.getId());
         return user;
     }
 
     @Transactional(readOnly = true)
     public User requireById(Long id) {
+        shards.bindUser(id);
         return userRepo.findById(id)
-                .orElseThrow(() -> new RuntimeException("USER_NOT_FOUND"));
+                .orElseThrow(() -> AuthError.USER_NOT_FOUND);
+    }
+
+    /**
+     * Lectura de perfil desde la caché. Sin @Transactional a propósito: un acierto no debe
+     * abrir transacción ni pedir conexión. Un fallo lee del primario: una réplica con retraso
+     * devolvería la fila de antes de una escritura recién invalidada, y quedaría en la caché
+     * (con su ETag) todo el TTL.
+     */
+    public UserSnapshot requireSnapshot(Long id) {
+        var s = cache.get(id, this::loadSnapshot);
+        if (s == null) throw AuthError.USER_NOT_FOUND;
+        return s;
+    }
+
+    public Optional<UserSnapshot> findSnapshotByEmail(String email) {
+        return Optional.ofNullable(cache.getByEmail(email,
+                e -> shards.onLogin(e, () -> fromPrimary(() -> userRepo.findByEmailIgnoreCase(e))).map(User::getId).orElse(null),
+                this::loadSnapshot));
+    }
+
+    private UserSnapshot loadSnapshot(Long id) {
+        return shards.onUser(id, () -> fromPrimary(() -> userRepo.findById(id))).map(UserSnapshot::of).orElse(null);
+    }
+
+    private Optional<User> fromPrimary(Supplier<Optional<User>> read) {
+        return primaryRead.execute(tx -> read.get());
     }
 
     @Transactional
     public void changePassword(Long id, String currentPassword, String newPassword) {
         var user = requireById(id);
         if (!encoder.matches(currentPassword, user.getPasswordHash())) {
-            throw new RuntimeException("CURRENT_PASSWORD_INCORRECT");
+            audit.record(PASSWORD_CHANGE_FAILED, id, AuthError.CURRENT_PASSWORD_INCORRECT.code());
+            throw AuthError.CURRENT_PASSWORD_INCORRECT;
         }
+        breached.requireNotBreached(newPassword);
         user.setPasswordHash(encoder.encode(newPassword));
         userRepo.save(user);
+        cache.evict(user);
+        audit.record(PASSWORD_CHANGED, id, null);
     }
 
     @Transactional(readOnly = true)
     public Optional<User> findByEmailIgnoreCase(String email) {
+        if (!shards.bindLogin(email)) return Optional.empty();
         return userRepo.findByEmailIgnoreCase(email);
     }
 
+    /** Por nombre de usuario o, si no, por email (exactos), como el login. */
+    @Transactional(readOnly = true)
+    public Optional<User> findByUsernameOrEmail(String usernameOrEmail) {
+        if (!shards.bindLogin(usernameOrEmail)) return Optional.empty();
+        return userRepo.findByUsername(usernameOrEmail).or(() -> userRepo.findByEmail(usernameOrEmail));
+    }
+
+    @Transactional
+    public void markVerified(Long id) {
+        var user = requireById(id);
+        if (user.isEnabled()) return;
+        user.setEnabled(true);
+        userRepo.save(user);
+        cache.evict(user);
+    }
+
     @Transactional
     public void forceChangePassword(Long userId, String rawPassword) {
-        var user = requireById(userId);
+        forceChangePassword(requireById(userId), rawPassword);
+    }
+
+    /** Para quien ya tiene el usuario cargado en su transacción (p. ej. el reset por token). */
+    @Transactional
+    public void forceChangePassword(User user, String rawPassword) {
         user.setPasswordHash(encoder.encode(rawPassword));
         userRepo.save(user);
+        cache.evict(user);
     }
 }
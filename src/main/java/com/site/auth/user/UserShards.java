@@ -0,0 +1,318 @@
+package com.site.auth.user;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.site.auth.AuthError;
+import com.site.datasource.MigrationConfig;
+import com.site.datasource.ShardContext;
+import com.site.datasource.ShardDataSources;
+import com.site.datasource.ShardingProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * En qué shard vive cada usuario (y sus tokens). Los servicios fijan el shard con esto antes de
+ * la primera sentencia de su transacción; los repositorios no cambian.
+ *
+ * <p>Un usuario nuevo va al shard que da un hash consistente (jump hash) de su nombre
+ * normalizado; desde ahí manda el directorio global, así que el rebalanceo puede moverlo.
+ * Los tokens en claro llevan el shard delante ({@code "3.xxxx"}). Sin sharding todo es no-op.
+ */
+@Component
+public class UserShards {
+    private static final Logger log = LoggerFactory.getLogger(UserShards.class);
+
+    /** Reserva del alta en el directorio: se confirma o se deshace al terminar la transacción. */
+    public interface Reservation {
+        void assign(Long userId);
+    }
+
+    private static final Reservation NONE = id -> {};
+
+    private final int count;
+    private final ShardDataSources dataSources;
+    private final String schema;
+    private final Duration reservationTimeout;
+    private final ShardDirectory directory;
+    private final Cache<Long, Integer> shardById;
+    private final Cache<String, Integer> shardByLogin;
+
+    public UserShards(ObjectProvider<ShardDataSources> shards,
+                      ObjectProvider<ShardingProperties> props,
+                      @Value("${spring.jpa.properties.hibernate.default_schema}") String schema) {
+        var sharded = shards.getIfAvailable();
+        this.dataSources = sharded;
+        this.schema = schema;
+        if (sharded == null) {
+            this.count = 1;
+            this.reservationTimeout = null;
+            this.directory = null;
+            this.shardById = null;
+            this.shardByLogin = null;
+            return;
+        }
+        var p = props.getObject();
+        this.count = sharded.count();
+        this.reservationTimeout = p.reservationTimeout();
+        this.directory = new ShardDirectory(sharded.get(0), schema);
+        // TTL corto: otra instancia puede mover un usuario (rebalanceo) sin avisar a esta
+        this.shardById = Caffeine.newBuilder()
+                .maximumSize(p.directoryCacheSize())
+                .expireAfterWrite(p.directoryCacheTtl())
+                .build();
+        this.shardByLogin = Caffeine.newBuilder()
+                .maximumSize(p.directoryCacheSize())
+                .expireAfterWrite(p.directoryCacheTtl())
+                .build();
+    }
+
+    public boolean enabled() { return directory != null; }
+
+    public int count() { return count; }
+
+    // ===== alta =====
+
+    /**
+     * Reserva usuario y email en el directorio (unicidad global) y fija el shard de la transacción
+     * de alta. Lanza {@code USERNAME_EXISTS} / {@code EMAIL_EXISTS}.
+     */
+    public Reservation reserve(String username, String email) {
+        if (!enabled()) return NONE;
+        String key = normalize(username);
+        int shard = placement(key);
+        String emailKey = normalize(email);
+        var conflict = directory.reserve(key, emailKey, shard);
+        if (conflict != null && reclaimStale(key, emailKey)) {
+            conflict = directory.reserve(key, emailKey, shard);
+        }
+        if (conflict == ShardDirectory.Conflict.USERNAME) throw AuthError.USERNAME_EXISTS;
+        if (conflict == ShardDirectory.Conflict.EMAIL) throw AuthError.EMAIL_EXISTS;
+
+        var reservation = new PendingReservation();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED && reservation.userId != null) {
+                    directory.assign(key, reservation.userId);
+                    shardById.put(reservation.userId, shard);
+                } else {
+                    directory.release(key);
+                }
+            }
+        });
+        ShardContext.bind(shard);
+        return reservation;
+    }
+
+    /** Cierra las reservas caducadas que chocan con este alta; true si alguna se ha liberado. */
+    private boolean reclaimStale(String username, String email) {
+        boolean freed = false;
+        for (var e : directory.staleReservations(username, email, reservationTimeout)) {
+            freed |= reclaim(e);
+        }
+        return freed;
+    }
+
+    /**
+     * Cierra hasta {@code limit} reservas caducadas (alta caída a medias o assign fallido tras el
+     * commit). Devuelve cuántas ha procesado.
+     */
+    public int reclaimStaleReservations(int limit) {
+        if (!enabled()) return 0;
+        var stale = directory.staleReservations(reservationTimeout, limit);
+        stale.forEach(this::reclaim);
+        return stale.size();
+    }
+
+    /**
+     * Si el usuario llegó a crearse en su shard, la reserva se completa; si no, se borra. La clave
+     * de la reserva sale de {@link #normalize}, que no tiene equivalente exacto en SQL (strip quita
+     * más espacios que trim): los candidatos salen del índice trigram de {@code lower(username)} y
+     * se comparan con la misma normalización que el alta.
+     */
+    private boolean reclaim(ShardDirectory.Entry e) {
+        var ids = new JdbcTemplate(dataSources.get(e.shard())).query(
+                "select id, username from " + schema + ".users where lower(username) like ? escape '\\'",
+                (rs, i) -> normalize(rs.getString(2)).equals(e.username()) ? rs.getLong(1) : null,
+                "%" + escapeLike(e.username()) + "%");
+        Long userId = ids.stream().filter(Objects::nonNull).findFirst().orElse(null);
+        boolean resolved = directory.resolve(e.username(), userId, reservationTimeout);
+        if (resolved) {
+            log.info("Reserva caducada de {} en el shard {}: {}", e.username(), e.shard(),
+                    userId == null ? "liberada" : "completada con el usuario " + userId);
+        }
+        return resolved && userId == null;
+    }
+
+    private static final class PendingReservation implements Reservation {
+        Long userId;
+
+        @Override
+        public void assign(Long userId) { this.userId = userId; }
+    }
+
+    // ===== dentro de una transacción (antes de la primera sentencia) =====
+
+    public void bindUser(Long userId) {
+        if (enabled()) ShardContext.bind(shardOf(userId));
+    }
+
+    /** False si el usuario/email no existe en ningún shard (no hace falta consultar ninguno). */
+    public boolean bindLogin(String usernameOrEmail) {
+        if (!enabled()) return true;
+        Integer shard = locate(usernameOrEmail);
+        if (shard == null) return false;
+        ShardContext.bind(shard);
+        return true;
+    }
+
+    /** False si el token no puede ser de ningún shard. Los tokens sin prefijo son del shard 0. */
+    public boolean bindToken(String plainToken) {
+        if (!enabled()) return true;
+        int shard = tokenShard(plainToken, count);
+        if (shard < 0) return false;
+        ShardContext.bind(shard);
+        return true;
+    }
+
+    /** Shard del prefijo {@code "k."} del token (0 si no lleva), o -1 si no es un shard válido. */
+    static int tokenShard(String plainToken, int count) {
+        int dot = plainToken.indexOf('.');
+        int shard = 0;
+        if (dot >= 0) {
+            try {
+                shard = Integer.parseInt(plainToken, 0, dot, 10);
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+        return shard >= 0 && shard < count ? shard : -1;
+    }
+
+    /** Token en claro con el shard actual delante. */
+    public String tagToken(String plainToken) {
+        return enabled() ? ShardContext.current() + "." + plainToken : plainToken;
+    }
+
+    // ===== fuera de transacción =====
+
+    public <T> T onShard(int shard, Supplier<T> body) {
+        return enabled() ? ShardContext.call(shard, body) : body.get();
+    }
+
+    public <T> T onUser(Long userId, Supplier<T> body) {
+        return enabled() ? ShardContext.call(shardOf(userId), body) : body.get();
+    }
+
+    public <T> Optional<T> onLogin(String usernameOrEmail, Supplier<Optional<T>> body) {
+        if (!enabled()) return body.get();
+        Integer shard = locate(usernameOrEmail);
+        return shard == null ? Optional.empty() : ShardContext.call(shard, body);
+    }
+
+    // ===== directorio =====
+
+    public int shardOf(Long userId) {
+        if (!enabled()) return 0;
+        return shardById.get(userId, id -> {
+            Integer s = directory.shardOf(id);
+            // Alta aún sin confirmar en el directorio: sigue en el shard de su rango de ids
+            return s != null ? s : homeShard(id);
+        });
+    }
+
+    /** Shard de cada usuario, con una sola consulta para los que no están en caché. */
+    public Map<Long, Integer> shardsOf(Collection<Long> userIds) {
+        if (!enabled()) {
+            var out = new HashMap<Long, Integer>();
+            userIds.forEach(id -> out.put(id, 0));
+            return out;
+        }
+        return shardById.getAll(userIds, missing -> {
+            var found = new HashMap<Long, Integer>(directory.shardsOf(missing));
+            missing.forEach(id -> found.putIfAbsent(id, homeShard(id)));
+            return found;
+        });
+    }
+
+    private Integer locate(String usernameOrEmail) {
+        String key = normalize(usernameOrEmail);
+        Integer cached = shardByLogin.getIfPresent(key);
+        if (cached != null) return cached;
+        var e = directory.findByLogin(key);
+        if (e == null) return null; // no se cachea: podría registrarse ahora
+        shardByLogin.put(key, e.shard());
+        return e.shard();
+    }
+
+    ShardDirectory directory() { return directory; }
+
+    /** Tras mover un usuario: olvidar lo cacheado en esta instancia. */
+    void forget(Long userId, String username, String email) {
+        shardById.invalidate(userId);
+        shardByLogin.invalidate(normalize(username));
+        shardByLogin.invalidate(normalize(email));
+    }
+
+    /** Shard donde debería estar un usuario según su nombre (para altas y rebalanceo). */
+    int placement(String normalizedUsername) {
+        return jumpHash(hash64(normalizedUsername), count);
+    }
+
+    private int homeShard(long userId) {
+        int s = (int) (userId >>> MigrationConfig.SHARD_ID_BITS);
+        return s < count ? s : 0;
+    }
+
+    static String normalize(String s) {
+        return s.strip().toLowerCase(Locale.ROOT);
+    }
+
+    private static String escapeLike(String s) {
+        return s.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    /** FNV-1a de 64 bits con mezcla final (splitmix64): estable entre versiones y JVMs. */
+    static long hash64(String s) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : s.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 30;
+        h *= 0xbf58476d1ce4e5b9L;
+        h ^= h >>> 27;
+        h *= 0x94d049bb133111ebL;
+        return h ^ (h >>> 31);
+    }
+
+    /**
+     * Jump consistent hash (Lamping y Veach): al pasar de N a N+1 shards solo cambia de shard
+     * 1/(N+1) de las claves, todas hacia el nuevo.
+     */
+    static int jumpHash(long key, int buckets) {
+        long b = -1, j = 0;
+        while (j < buckets) {
+            b = j;
+            key = key * 2862933555777941757L + 1;
+            j = (long) ((b + 1) * ((double) (1L << 31) / (double) ((key >>> 33) + 1)));
+        }
+        return (int) b;
+    }
+}
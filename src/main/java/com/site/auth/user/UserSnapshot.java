@@ -0,0 +1,19 @@
+package com.site.auth.user;
+
+import java.time.Instant;
+
+/** Copia inmutable de un {@link User} para la caché (no es una entidad gestionada). */
+public record UserSnapshot(
+        Long id,
+        long version,
+        String username,
+        String email,
+        boolean enabled,
+        int level,
+        Instant createdAt
+) {
+    public static UserSnapshot of(User u) {
+        return new UserSnapshot(u.getId(), u.getVersion(), u.getUsername(), u.getEmail(),
+                u.isEnabled(), u.getLevel(), u.getCreatedAt());
+    }
+}
@@ -1,7 +1,9 @@
 package com.site.auth.verification;
 
+import jakarta.validation.Valid;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -20,8 +22,11 @@ public class EmailVerificationController {
     }
 
     @PostMapping("/verify-email/request")
-    public ResponseEntity<Void> request(@RequestBody VerifyEmailRequest body) {
-        users.findByEmailIgnoreCase(body.email()).ifPresent(u -> {
+    public ResponseEntity<Void> request(@Valid @RequestBody VerifyEmailRequest body) {
+        // El caso habitual (cuenta ya verificada) se resuelve desde la caché, sin ir a la BD
+        users.findSnapshotByEmail(body.email()).ifPresent(s -> {
+            if (s.enabled()) return;
+            var u = users.requireById(s.id());
             if (!u.isEnabled()) verification.send(u);
         });
         return ResponseEntity.noContent().build();
@@ -33,5 +38,5 @@ public class EmailVerificationController {
         return ResponseEntity.status(302).header("Location", redirectTo).build();
     }
 
-    public record VerifyEmailRequest(@NotBlank @Email String email) {}
+    public record VerifyEmailRequest(@NotBlank @Email @Size(max = 120) String email) {}
 }
@@ -4,9 +4,16 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.site.audit.AuditLog;
+import com.site.auth.AuthError;
+import com.site.auth.RequestCooldown;
 import com.site.auth.mail.MailSenderPort;
 import com.site.auth.user.User;
+import com.site.auth.user.UserCache;
 import com.site.auth.user.UserRepository;
+import com.site.auth.user.UserShards;
+import com.site.jfr.TokenRedeemEvent;
+import com.site.metrics.AuthMetrics;
 
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
@@ -15,12 +22,19 @@ import java.time.Duration;
 import java.time.Instant;
 import java.util.Base64;
 
+import static com.site.audit.AuditEventType.*;
+
 @Service
 public class EmailVerificationService {
 
     private final EmailVerificationTokenRepository tokens;
     private final UserRepository users;
+    private final UserCache userCache;
     private final MailSenderPort mail;
+    private final AuthMetrics metrics;
+    private final AuditLog audit;
+    private final RequestCooldown cooldown;
+    private final UserShards shards;
     private final SecureRandom rnd = new SecureRandom();
 
     private final Duration ttl;
@@ -31,7 +45,12 @@ public class EmailVerificationService {
     public EmailVerificationService(
             EmailVerificationTokenRepository tokens,
             UserRepository users,
+            UserCache userCache,
             MailSenderPort mail,
+            AuthMetrics metrics,
+            AuditLog audit,
+            RequestCooldown cooldown,
+            UserShards shards,
             @Value("${app.verify-email.ttl-hours:24}") long ttlHours,
             @Value("${app.verify-email.backend-verify-url:}") String backendVerifyUrl,
             @Value("${app.verify-email.frontend-success-url:https://opsimulator.com/verified}") String frontendSuccessUrl,
@@ -39,26 +58,49 @@ public class EmailVerificationService {
     ) {
         this.tokens = tokens;
         this.users = users;
+        this.userCache = userCache;
         this.mail = mail;
+        this.metrics = metrics;
+        this.audit = audit;
+        this.cooldown = cooldown;
+        this.shards = shards;
         this.ttl = Duration.ofHours(ttlHours);
         this.backendVerifyUrl = backendVerifyUrl == null ? "" : backendVerifyUrl.trim();
         this.frontendSuccessUrl = frontendSuccessUrl;
         this.frontendErrorUrl = frontendErrorUrl;
     }
 
-    /** Enviar (o reenviar) verificación al usuario (idempotente). */
+    /**
+     * Enviar (o reenviar) verificación al usuario (idempotente). Dentro de la ventana de
+     * enfriamiento no hace nada: el correo anterior sigue siendo válido.
+     */
     @Transactional
     public void send(User u) {
-        tokens.deleteByUser_IdAndUsedAtIsNull(u.getId());
+        shards.bindUser(u.getId());
+        if (!cooldown.tryAcquire(RequestCooldown.Kind.VERIFY, u.getId(),
+                cutoff -> tokens.existsByUser_IdAndCreatedAtAfter(u.getId(), cutoff))) {
+            return;
+        }
+        try {
+            sendNow(u);
+        } catch (RuntimeException e) {
+            cooldown.release(RequestCooldown.Kind.VERIFY, u.getId());
+            throw e;
+        }
+    }
 
-        String plain = randomToken();
+    private void sendNow(User u) {
+        String plain = shards.tagToken(randomToken());
         String hash = sha256(plain);
 
-        var t = new EmailVerificationToken();
-        t.setUser(u);
-        t.setTokenHash(hash);
-        t.setExpiresAt(Instant.now().plus(ttl));
-        tokens.save(t);
+        metrics.time("register", "token_insert", () -> {
+            tokens.deleteByUser_IdAndUsedAtIsNull(u.getId());
+            var t = new EmailVerificationToken();
+            t.setUser(u);
+            t.setTokenHash(hash);
+            t.setExpiresAt(Instant.now().plus(ttl));
+            tokens.save(t);
+        });
 
         String link = buildVerifyLink(plain);
 
@@ -72,18 +114,20 @@ public class EmailVerificationService {
             </div>
         """.formatted(link, link, ttl.toHours());
 
-        mail.send(u.getEmail(), "Verifica tu correo", html);
+        metrics.time("register", "mail_send", () -> mail.send(u.getEmail(), "Verifica tu correo", html));
     }
 
-    /** Confirma token (modo API). Lanza códigos para tu AuthExceptionHandler. */
+    /** Confirma token (modo API). Lanza {@link AuthError} para el AuthExceptionHandler. */
     @Transactional
     public void confirm(String plainToken) {
+        var event = TokenRedeemEvent.start("verify");
+        if (!shards.bindToken(plainToken)) throw fail(event, AuthError.INVALID_TOKEN);
         String hash = sha256(plainToken);
-        var t = tokens.findByTokenHash(hash)
-                .orElseThrow(() -> new RuntimeException("INVALID_TOKEN"));
+        var t = tokens.findByTokenHashFetchUser(hash)
+                .orElseThrow(() -> fail(event, AuthError.INVALID_TOKEN));
 
-        if (t.isUsed())     throw new RuntimeException("TOKEN_ALREADY_USED");
-        if (t.isExpired())  throw new RuntimeException("TOKEN_EXPIRED");
+        if (t.isUsed())     throw fail(event, AuthError.TOKEN_ALREADY_USED);
+        if (t.isExpired())  throw fail(event, AuthError.TOKEN_EXPIRED);
 
         t.setUsedAt(Instant.now());
         tokens.save(t);
@@ -91,29 +135,37 @@ public class EmailVerificationService {
         var u = t.getUser();
         u.setEnabled(true);
         users.save(u);
+        userCache.evict(u);
 
         tokens.deleteByUser_IdAndUsedAtIsNull(u.getId());
+        metrics.tokenOutcome("verify", "OK");
+        audit.record(VERIFY_OK, u.getId(), null);
+        event.finish("OK");
     }
 
     /** Confirma y devuelve URL de redirección (éxito/error). */
     @Transactional
     public String confirmAndGetRedirectUrl(String plainToken) {
+        var event = TokenRedeemEvent.start("verify");
+        if (!shards.bindToken(plainToken)) {
+            return errorRedirect(event, "INVALID_TOKEN");
+        }
         String hash = sha256(plainToken);
-        var opt = tokens.findByTokenHash(hash);
+        var opt = tokens.findByTokenHashFetchUser(hash);
 
         if (opt.isEmpty()) {
-            return frontendErrorUrl + "?reason=INVALID_TOKEN";
+            return errorRedirect(event, "INVALID_TOKEN");
         }
 
         var t = opt.get();
 
         if (t.isExpired()) {
             tokens.delete(t);
-            return frontendErrorUrl + "?reason=TOKEN_EXPIRED";
+            return errorRedirect(event, "TOKEN_EXPIRED");
         }
 
         if (t.isUsed()) {
-            return frontendErrorUrl + "?reason=TOKEN_ALREADY_USED";
+            return errorRedirect(event, "TOKEN_ALREADY_USED");
         }
 
         t.setUsedAt(Instant.now());
@@ -122,13 +174,31 @@ public class EmailVerificationService {
         var u = t.getUser();
         u.setEnabled(true);
         users.save(u);
+        userCache.evict(u);
 
         tokens.deleteByUser_IdAndUsedAtIsNull(u.getId());
 
+        metrics.tokenOutcome("verify", "OK");
+        audit.record(VERIFY_OK, u.getId(), null);
+        event.finish("OK");
         return frontendSuccessUrl;
     }
 
     // ===== helpers =====
+    private AuthError fail(TokenRedeemEvent event, AuthError error) {
+        metrics.tokenOutcome("verify", error.code());
+        audit.record(VERIFY_FAILED, null, error.code());
+        event.finish(error.code());
+        return error;
+    }
+
+    private String errorRedirect(TokenRedeemEvent event, String code) {
+        metrics.tokenOutcome("verify", code);
+        audit.record(VERIFY_FAILED, null, code);
+        event.finish(code);
+        return frontendErrorUrl + "?reason=" + code;
+    }
+
     private String randomToken() {
         byte[] b = new byte[32];
         rnd.nextBytes(b);
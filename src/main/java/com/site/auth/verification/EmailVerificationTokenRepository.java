@@ -1,11 +1,28 @@
 package com.site.auth.verification;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
 import java.util.Optional;
 
 public interface EmailVerificationTokenRepository extends JpaRepository<EmailVerificationToken, Long> {
     Optional<EmailVerificationToken> findByTokenHash(String tokenHash);
+
+    // Confirmar siempre activa el usuario: traerlo en la misma consulta
+    @Query("select t from EmailVerificationToken t join fetch t.user where t.tokenHash = :hash")
+    Optional<EmailVerificationToken> findByTokenHashFetchUser(@Param("hash") String tokenHash);
+
     void deleteByUser_Id(Long userId);
-    void deleteByUser_IdAndUsedAtIsNull(Long userId);
+
+    // Un solo DELETE (la versión derivada cargaba los tokens y los borraba uno a uno)
+    @Transactional
+    @Modifying(flushAutomatically = true)
+    @Query("delete from EmailVerificationToken t where t.user.id = :userId and t.usedAt is null")
+    void deleteByUser_IdAndUsedAtIsNull(@Param("userId") Long userId);
+
+    boolean existsByUser_IdAndCreatedAtAfter(Long userId, Instant cutoff);
 }
@@ -0,0 +1,44 @@
+package com.site.datasource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@link ReadReplicaConfig} y {@link ShardingConfig} sustituyen al DataSource con
+ * {@code @ConditionalOnProperty}, y con AOT ({@code -Pfast-start} o imagen nativa) esas
+ * condiciones se evalúan al compilar: cambiar la propiedad al arrancar no cambiaría nada. Aquí se
+ * comprueba que lo pedido coincide con los beans que hay y, si no, no se arranca.
+ */
+@Component
+public class DataSourceModeCheck implements SmartInitializingSingleton {
+
+    private final boolean replicasEnabled;
+    private final boolean shardingEnabled;
+    private final ObjectProvider<ReplicaRoutingDataSource> replicas;
+    private final ObjectProvider<ShardDataSources> shards;
+
+    public DataSourceModeCheck(@Value("${app.datasource.read-replicas.enabled:false}") boolean replicasEnabled,
+                               @Value("${app.sharding.enabled:false}") boolean shardingEnabled,
+                               ObjectProvider<ReplicaRoutingDataSource> replicas,
+                               ObjectProvider<ShardDataSources> shards) {
+        this.replicasEnabled = replicasEnabled;
+        this.shardingEnabled = shardingEnabled;
+        this.replicas = replicas;
+        this.shards = shards;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        require("app.datasource.read-replicas.enabled", replicasEnabled, replicas.getIfAvailable() != null);
+        require("app.sharding.enabled", shardingEnabled, shards.getIfAvailable() != null);
+    }
+
+    private static void require(String property, boolean requested, boolean built) {
+        if (requested != built) {
+            throw new IllegalStateException(property + "=" + requested + " pero el build AOT se generó con "
+                    + built + ": recompilar con el mismo valor (ver README, arranque rápido)");
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.site.datasource;
+
+import org.flywaydb.core.Flyway;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Migraciones Flyway al arrancar, desactivables en tiempo de ejecución.
+ * Con AOT las condiciones de {@code spring.flyway.enabled} quedan fijadas en el build,
+ * así que el arranque de entrenamiento CDS (sin BD) se salta la migración con este flag.
+ *
+ * <p>Con sharding se migra cada shard con la misma configuración, y cada shard genera ids de
+ * usuario en su propio rango ({@code k << 40}) para que sean únicos entre shards.
+ */
+@Configuration
+public class MigrationConfig {
+    private static final Logger log = LoggerFactory.getLogger(MigrationConfig.class);
+
+    /** Ids de usuario por shard: 2^40 (~10^12) por rango. */
+    public static final int SHARD_ID_BITS = 40;
+
+    @Bean
+    public FlywayMigrationStrategy flywayMigrationStrategy(
+            @Value("${app.migrations.on-startup:true}") boolean onStartup,
+            @Value("${spring.jpa.properties.hibernate.default_schema}") String schema,
+            ObjectProvider<ShardDataSources> shards) {
+        return flyway -> {
+            if (!onStartup) {
+                log.info("Migraciones desactivadas en este arranque (app.migrations.on-startup=false)");
+                return;
+            }
+            flyway.migrate();
+            var sharded = shards.getIfAvailable();
+            if (sharded == null) return;
+            for (int k = 1; k < sharded.count(); k++) {
+                Flyway.configure(flyway.getConfiguration().getClassLoader())
+                        .configuration(flyway.getConfiguration())
+                        .dataSource(sharded.get(k))
+                        .load()
+                        .migrate();
+                startIdRange(new JdbcTemplate(sharded.get(k)), schema, (long) k << SHARD_ID_BITS);
+                log.info("Shard {} migrado", sharded.name(k));
+            }
+        };
+    }
+
+    /** Lleva la secuencia de users al inicio del rango del shard, si aún no ha llegado (idempotente). */
+    private static void startIdRange(JdbcTemplate jdbc, String schema, long base) {
+        jdbc.query("""
+                select setval(s, ?, false)
+                from (select pg_get_serial_sequence(?, 'id')::regclass as s) q
+                where coalesce(pg_sequence_last_value(s), 0) < ?
+                """, rs -> {}, base, schema + ".users", base);
+    }
+}
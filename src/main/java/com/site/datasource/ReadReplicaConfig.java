@@ -0,0 +1,92 @@
+package com.site.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Routing primario/réplicas. Sustituye al DataSource autoconfigurado solo si
+ * {@code app.datasource.read-replicas.enabled=true}.
+ */
+@Configuration
+@EnableConfigurationProperties(ReadReplicaProperties.class)
+@ConditionalOnProperty(prefix = "app.datasource.read-replicas", name = "enabled", havingValue = "true")
+public class ReadReplicaConfig {
+
+    private final ReadReplicaProperties props;
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+    private ReplicaRoutingDataSource routing;
+
+    public ReadReplicaConfig(ReadReplicaProperties props, ObjectProvider<MeterRegistry> meterRegistry) {
+        this.props = props;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties dsProps) {
+        return dsProps.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(HikariDataSource primaryDataSource) {
+        var replicas = props.replicas().stream()
+                .map(r -> new ReplicaRoutingDataSource.Replica(r.name(), replicaPool(r)))
+                .toList();
+        this.routing = new ReplicaRoutingDataSource(primaryDataSource, replicas, props.maxLag());
+        return routing;
+    }
+
+    /** DataSource que usan JPA y el resto de la app. */
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+
+    @Scheduled(fixedDelayString = "${app.datasource.read-replicas.check-interval-ms:5000}")
+    public void checkReplicaLag() {
+        if (routing != null) routing.checkLag();
+    }
+
+    private HikariDataSource replicaPool(ReadReplicaProperties.Replica r) {
+        var ds = replicaPool(r, props.poolSize(), props.connectionTimeout());
+        // Los pools de réplica no son beans: se registran a mano en Micrometer (hikaricp.*).
+        // Con la factoría explícita: setMetricRegistry busca por reflexión un constructor con la
+        // clase concreta del registro y falla con cualquiera que no sea MeterRegistry a secas
+        meterRegistry.ifAvailable(registry -> ds.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry)));
+        return ds;
+    }
+
+    /**
+     * Pool de una réplica. Arranca sin conectar (una réplica caída no impide arrancar ni lanza
+     * PoolInitializationException) y con un timeout de conexión corto: la petición que encuentra
+     * la réplica caída espera solo eso antes de ir al primario.
+     */
+    static HikariDataSource replicaPool(ReadReplicaProperties.Replica r, int poolSize, Duration connectionTimeout) {
+        var ds = new HikariDataSource();
+        ds.setPoolName("replica-" + r.name());
+        ds.setJdbcUrl(r.url());
+        ds.setUsername(r.username());
+        ds.setPassword(r.password());
+        ds.setMaximumPoolSize(poolSize);
+        ds.setReadOnly(true);
+        ds.setConnectionTimeout(connectionTimeout.toMillis());
+        ds.setValidationTimeout(Math.min(connectionTimeout.toMillis(), ds.getValidationTimeout()));
+        ds.setInitializationFailTimeout(-1);
+        return ds;
+    }
+}
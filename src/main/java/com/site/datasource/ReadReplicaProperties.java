@@ -0,0 +1,32 @@
+package com.site.datasource;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Réplicas de lectura para las transacciones {@code readOnly}.
+ * Si {@code enabled=false} se usa el datasource único de Spring Boot.
+ */
+@ConfigurationProperties("app.datasource.read-replicas")
+public record ReadReplicaProperties(
+        boolean enabled,
+        Duration maxLag,
+        long checkIntervalMs,
+        int poolSize,
+        Duration connectionTimeout,
+        List<Replica> replicas
+) {
+
+    public ReadReplicaProperties {
+        if (maxLag == null) maxLag = Duration.ofSeconds(5);
+        if (checkIntervalMs <= 0) checkIntervalMs = 5000;
+        if (poolSize <= 0) poolSize = 10;
+        // Corto: una réplica caída hace esperar esto a la petición que la descubre
+        if (connectionTimeout == null) connectionTimeout = Duration.ofSeconds(1);
+        if (replicas == null) replicas = List.of();
+    }
+
+    public record Replica(String name, String url, String username, String password) {}
+}
@@ -0,0 +1,145 @@
+package com.site.datasource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Envía las transacciones {@code readOnly} a una réplica sana y el resto al primario.
+ * Debe ir envuelto en un {@code LazyConnectionDataSourceProxy}: así la conexión real se
+ * pide con la primera sentencia, cuando el flag readOnly de la transacción ya está fijado.
+ *
+ * <p>Una réplica que no da conexión sale de rotación en el acto y la petición sigue en el
+ * primario (espera como mucho el {@code connection-timeout} del pool de réplica); vuelve cuando
+ * {@link #checkLag()} la encuentra al día.
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource {
+    private static final Logger log = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    /** Segundos de retraso de réplica; 0 si está al día o si la base no está en recuperación. */
+    private static final String LAG_SQL = """
+            select case
+                     when not pg_is_in_recovery() then 0
+                     when pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() then 0
+                     else coalesce(extract(epoch from now() - pg_last_xact_replay_timestamp()), 0)
+                   end
+            """;
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final long maxLagMillis;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReplicaRoutingDataSource(DataSource primary, List<Replica> replicas, Duration maxLag) {
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        this.maxLagMillis = maxLag.toMillis();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return route(DataSource::getConnection);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return route(ds -> ds.getConnection(username, password));
+    }
+
+    private Connection route(Connect connect) throws SQLException {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return connect.to(primary);
+        }
+        Replica replica = pickHealthy();
+        if (replica != null) {
+            try {
+                return connect.to(replica.dataSource());
+            } catch (SQLException e) {
+                replica.markDown(e.getMessage());
+                log.warn("Réplica {} no disponible, se usa el primario: {}", replica.name(), e.getMessage());
+            }
+        }
+        return connect.to(primary);
+    }
+
+    @FunctionalInterface
+    private interface Connect {
+        Connection to(DataSource ds) throws SQLException;
+    }
+
+    /** Round-robin entre réplicas sanas; null si no hay ninguna (fallback al primario). */
+    Replica pickHealthy() {
+        int n = replicas.size();
+        if (n == 0) return null;
+        int start = Math.floorMod(next.getAndIncrement(), n);
+        for (int i = 0; i < n; i++) {
+            Replica r = replicas.get((start + i) % n);
+            if (r.healthy()) return r;
+        }
+        return null;
+    }
+
+    /** Mide el retraso de cada réplica y la marca fuera de rotación si supera el máximo. */
+    public void checkLag() {
+        for (Replica r : replicas) {
+            try (Connection c = r.dataSource().getConnection();
+                 Statement st = c.createStatement();
+                 ResultSet rs = st.executeQuery(LAG_SQL)) {
+                rs.next();
+                long lagMillis = Math.round(rs.getDouble(1) * 1000);
+                r.lagMillis = lagMillis;
+                if (lagMillis > maxLagMillis) {
+                    r.markDown("lag " + lagMillis + " ms");
+                } else if (!r.healthy) {
+                    r.healthy = true;
+                    log.info("Réplica {} de vuelta en rotación (lag {} ms)", r.name(), lagMillis);
+                }
+            } catch (SQLException e) {
+                r.markDown(e.getMessage());
+            }
+        }
+    }
+
+    public List<Replica> getReplicas() { return replicas; }
+
+    /** Cierra los pools de réplica (el primario lo gestiona su propio bean). */
+    public void close() {
+        for (Replica r : replicas) {
+            if (r.dataSource() instanceof AutoCloseable c) {
+                try { c.close(); } catch (Exception e) { log.debug("Error cerrando réplica {}", r.name(), e); }
+            }
+        }
+    }
+
+    public static final class Replica {
+        private final String name;
+        private final DataSource dataSource;
+        private volatile boolean healthy = true;
+        private volatile long lagMillis;
+
+        public Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+
+        void markDown(String reason) {
+            if (healthy) log.warn("Réplica {} fuera de rotación: {}", name, reason);
+            healthy = false;
+        }
+
+        public String name() { return name; }
+        public DataSource dataSource() { return dataSource; }
+        public boolean healthy() { return healthy; }
+        public long lagMillis() { return lagMillis; }
+    }
+}
@@ -0,0 +1,63 @@
+package com.site.datasource;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.function.Supplier;
+
+/**
+ * Shard del hilo actual para {@link ShardRoutingDataSource}. Sin shard fijado se usa el 0.
+ *
+ * <p>Como con las réplicas, la conexión real se pide con la primera sentencia: {@link #bind}
+ * vale dentro de una transacción siempre que se llame antes de tocar la BD, y dura hasta que
+ * la transacción termina. Una transacción no puede cambiar de shard.
+ */
+public final class ShardContext {
+
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    private ShardContext() {}
+
+    /** Shard fijado o 0. */
+    public static int current() {
+        Integer s = CURRENT.get();
+        return s == null ? 0 : s;
+    }
+
+    static Integer lookupKey() {
+        return CURRENT.get();
+    }
+
+    /** Fija el shard para el resto de la transacción en curso. */
+    public static void bind(int shard) {
+        Integer bound = CURRENT.get();
+        if (bound != null) {
+            if (bound != shard) {
+                throw new IllegalStateException("La transacción ya está en el shard " + bound + ", no en " + shard);
+            }
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Sin transacción activa: usar ShardContext.call");
+        }
+        CURRENT.set(shard);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                CURRENT.remove();
+            }
+        });
+    }
+
+    /** Ejecuta {@code body} (que abre sus propias transacciones, o ninguna) en el shard dado. */
+    public static <T> T call(int shard, Supplier<T> body) {
+        Integer previous = CURRENT.get();
+        CURRENT.set(shard);
+        try {
+            return body.get();
+        } finally {
+            if (previous == null) CURRENT.remove();
+            else CURRENT.set(previous);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.site.datasource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+/** Pools de cada shard, por índice. Para quien necesita un shard concreto sin pasar por el routing. */
+public final class ShardDataSources {
+    private static final Logger log = LoggerFactory.getLogger(ShardDataSources.class);
+
+    private final List<String> names;
+    private final List<DataSource> dataSources;
+
+    public ShardDataSources(List<String> names, List<DataSource> dataSources) {
+        this.names = List.copyOf(names);
+        this.dataSources = List.copyOf(dataSources);
+    }
+
+    public int count() { return dataSources.size(); }
+
+    public DataSource get(int shard) { return dataSources.get(shard); }
+
+    public String name(int shard) { return names.get(shard); }
+
+    /** Cierra los pools de los shards 1..N-1 (el 0 lo gestiona su propio bean). */
+    public void close() {
+        for (int i = 1; i < dataSources.size(); i++) {
+            if (dataSources.get(i) instanceof AutoCloseable c) {
+                try { c.close(); } catch (Exception e) { log.debug("Error cerrando shard {}", names.get(i), e); }
+            }
+        }
+    }
+}
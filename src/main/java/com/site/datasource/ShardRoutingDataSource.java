@@ -0,0 +1,26 @@
+package com.site.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import java.util.HashMap;
+
+/**
+ * Envía cada conexión al shard de {@link ShardContext}; sin shard, al 0. Debe ir envuelto en un
+ * {@code LazyConnectionDataSourceProxy} para que el shard se pueda fijar ya empezada la transacción.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource {
+
+    public ShardRoutingDataSource(ShardDataSources shards) {
+        var targets = new HashMap<Object, Object>();
+        for (int i = 0; i < shards.count(); i++) targets.put(i, shards.get(i));
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(shards.get(0));
+        setLenientFallback(false); // un shard fijado que no existe es un error, no el shard 0
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return ShardContext.lookupKey();
+    }
+}
@@ -0,0 +1,80 @@
+package com.site.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+
+/**
+ * Sharding de usuarios: sustituye al DataSource autoconfigurado por un routing entre shards
+ * solo si {@code app.sharding.enabled=true}. Incompatible con las réplicas de lectura.
+ */
+@Configuration
+@EnableConfigurationProperties(ShardingProperties.class)
+@ConditionalOnProperty(prefix = "app.sharding", name = "enabled", havingValue = "true")
+public class ShardingConfig {
+
+    private final ShardingProperties props;
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+
+    public ShardingConfig(ShardingProperties props,
+                          ObjectProvider<MeterRegistry> meterRegistry,
+                          @Value("${app.datasource.read-replicas.enabled:false}") boolean readReplicas) {
+        if (readReplicas) {
+            throw new IllegalStateException("app.sharding y app.datasource.read-replicas no se pueden activar a la vez");
+        }
+        this.props = props;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /** Shard 0: el de {@code spring.datasource}. */
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties dsProps) {
+        return dsProps.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public ShardDataSources shardDataSources(HikariDataSource primaryDataSource) {
+        var names = new ArrayList<String>();
+        var dataSources = new ArrayList<DataSource>();
+        names.add("0");
+        dataSources.add(primaryDataSource);
+        for (var s : props.shards()) {
+            names.add(s.name());
+            dataSources.add(shardPool(s));
+        }
+        return new ShardDataSources(names, dataSources);
+    }
+
+    /** DataSource que usan JPA y el resto de la app. */
+    @Bean
+    @Primary
+    public DataSource dataSource(ShardDataSources shardDataSources) {
+        return new LazyConnectionDataSourceProxy(new ShardRoutingDataSource(shardDataSources));
+    }
+
+    private HikariDataSource shardPool(ShardingProperties.Shard s) {
+        var ds = new HikariDataSource();
+        ds.setPoolName("shard-" + s.name());
+        ds.setJdbcUrl(s.url());
+        ds.setUsername(s.username());
+        ds.setPassword(s.password());
+        ds.setMaximumPoolSize(props.poolSize());
+        // Los pools de shard no son beans: se registran a mano en Micrometer (hikaricp.*)
+        meterRegistry.ifAvailable(r -> ds.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(r)));
+        return ds;
+    }
+}
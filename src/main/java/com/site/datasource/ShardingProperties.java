@@ -0,0 +1,31 @@
+package com.site.datasource;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Shards de usuarios. El shard 0 es {@code spring.datasource} (guarda también el directorio
+ * global y la auditoría); {@code shards} son los shards 1..N-1, en orden fijo: añadir al final.
+ */
+@ConfigurationProperties("app.sharding")
+public record ShardingProperties(
+        boolean enabled,
+        int poolSize,
+        long directoryCacheSize,
+        Duration directoryCacheTtl,
+        Duration reservationTimeout,
+        List<Shard> shards
+) {
+
+    public ShardingProperties {
+        if (poolSize <= 0) poolSize = 10;
+        if (directoryCacheSize <= 0) directoryCacheSize = 100_000;
+        if (directoryCacheTtl == null) directoryCacheTtl = Duration.ofSeconds(30);
+        if (reservationTimeout == null) reservationTimeout = Duration.ofMinutes(5);
+        if (shards == null) shards = List.of();
+    }
+
+    public record Shard(String name, String url, String username, String password) {}
+}
@@ -0,0 +1,25 @@
+package com.site.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** Una fase medida por {@code AuthMetrics.time}: login/bcrypt, login/jwt_sign, jwt/decode, register/mail_send... */
+@Name("com.site.AuthPhase")
+@Label("Auth Phase")
+@Category({"Site", "Auth"})
+@Description("Fase de un flujo de auth, con el mismo operation/phase/outcome que el timer auth.phase")
+@StackTrace(false)
+public class AuthPhaseEvent extends jdk.jfr.Event {
+
+    @Label("Operation")
+    public String operation;
+
+    @Label("Phase")
+    public String phase;
+
+    @Label("Outcome")
+    public String outcome;
+}
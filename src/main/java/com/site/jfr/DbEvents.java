@@ -0,0 +1,42 @@
+package com.site.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** Eventos de BD emitidos por {@link JfrSessionEventListener}. */
+public final class DbEvents {
+
+    private DbEvents() {}
+
+    @Name("com.site.db.ConnectionAcquire")
+    @Label("DB Connection Acquire")
+    @Category({"Site", "Database"})
+    @Description("Espera hasta obtener conexión del pool (Hikari)")
+    @StackTrace(false)
+    public static class ConnectionAcquire extends jdk.jfr.Event {}
+
+    @Name("com.site.db.Statement")
+    @Label("DB Statement")
+    @Category({"Site", "Database"})
+    @Description("Ejecución de una sentencia o lote JDBC por Hibernate")
+    @StackTrace(false)
+    public static class Statement extends jdk.jfr.Event {
+        @Label("Batch")
+        public boolean batch;
+    }
+
+    @Name("com.site.db.Flush")
+    @Label("Hibernate Flush")
+    @Category({"Site", "Database"})
+    @StackTrace(false)
+    public static class Flush extends jdk.jfr.Event {
+        @Label("Entities")
+        public int entities;
+
+        @Label("Collections")
+        public int collections;
+    }
+}
@@ -0,0 +1,73 @@
+package com.site.jfr;
+
+import org.hibernate.SessionEventListener;
+
+/**
+ * Convierte los callbacks de sesión de Hibernate en eventos JFR: espera de conexión, sentencias
+ * y flush. Se registra con {@code hibernate.session.events.auto}; una instancia por sesión, así
+ * que el estado entre start/end no se comparte entre hilos.
+ */
+public class JfrSessionEventListener implements SessionEventListener {
+
+    private transient DbEvents.ConnectionAcquire acquire;
+    private transient DbEvents.Statement statement;
+    private transient DbEvents.Flush flush;
+
+    @Override
+    public void jdbcConnectionAcquisitionStart() {
+        acquire = new DbEvents.ConnectionAcquire();
+        acquire.begin();
+    }
+
+    @Override
+    public void jdbcConnectionAcquisitionEnd() {
+        if (acquire != null) acquire.commit();
+        acquire = null;
+    }
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        statementStart(false);
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        statementEnd();
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        statementStart(true);
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        statementEnd();
+    }
+
+    @Override
+    public void flushStart() {
+        flush = new DbEvents.Flush();
+        flush.begin();
+    }
+
+    @Override
+    public void flushEnd(int numberOfEntities, int numberOfCollections) {
+        if (flush == null) return;
+        flush.entities = numberOfEntities;
+        flush.collections = numberOfCollections;
+        flush.commit();
+        flush = null;
+    }
+
+    private void statementStart(boolean batch) {
+        statement = new DbEvents.Statement();
+        statement.batch = batch;
+        statement.begin();
+    }
+
+    private void statementEnd() {
+        if (statement != null) statement.commit();
+        statement = null;
+    }
+}
@@ -0,0 +1,38 @@
+package com.site.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** Un {@code UserService.authenticate} completo; sus fases van como {@link AuthPhaseEvent} en el mismo hilo. */
+@Name("com.site.Login")
+@Label("Login")
+@Category({"Site", "Auth"})
+@Description("Intento de login con su resultado")
+@StackTrace(false)
+public class LoginEvent extends jdk.jfr.Event {
+
+    /** Cubos de usuario: agrupa por usuario sin dejar el id en la grabación. */
+    public static final int USER_BUCKETS = 256;
+
+    @Label("Outcome")
+    public String outcome;
+
+    @Label("User Id Bucket")
+    @Description("Hash del id de usuario módulo " + USER_BUCKETS + "; -1 si no se identificó")
+    public int userIdBucket;
+
+    public static LoginEvent start() {
+        var e = new LoginEvent();
+        e.begin();
+        return e;
+    }
+
+    public void finish(String outcome, Long userId) {
+        this.outcome = outcome;
+        this.userIdBucket = userId == null ? -1 : Math.floorMod(Long.hashCode(userId * 0x9E3779B97F4A7C15L), USER_BUCKETS);
+        commit();
+    }
+}
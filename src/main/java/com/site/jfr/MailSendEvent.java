@@ -0,0 +1,23 @@
+package com.site.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** Envío SMTP; con traza de pila para ver qué flujo lo disparó. */
+@Name("com.site.MailSend")
+@Label("Mail Send")
+@Category({"Site", "Mail"})
+public class MailSendEvent extends jdk.jfr.Event {
+
+    @Label("Recipient Domain")
+    public String recipientDomain;
+
+    @Label("Body Size")
+    @DataAmount
+    public long bodyBytes;
+
+    @Label("Outcome")
+    public String outcome;
+}
@@ -0,0 +1,133 @@
+package com.site.jfr;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Resumen offline de una grabación JFR con los eventos de {@code com.site.*}:
+ * <ol>
+ *   <li>latencias por operación (count, p50, p90, p99, max), p. ej. {@code AuthPhase login/bcrypt ok};</li>
+ *   <li>los N logins más lentos desglosados en lo que pasó en su hilo mientras duraban
+ *       (fases, espera de conexión, sentencias, flush).</li>
+ * </ol>
+ *
+ * <pre>
+ * java -cp target/site-0.0.1-SNAPSHOT.jar -Dloader.main=com.site.jfr.RecordingAnalyzer \
+ *      org.springframework.boot.loader.launch.PropertiesLauncher auth.jfr [top=10]
+ * </pre>
+ */
+public final class RecordingAnalyzer {
+
+    private RecordingAnalyzer() {}
+
+    private record Span(String key, long thread, Instant start, Instant end) {
+        Duration duration() { return Duration.between(start, end); }
+        boolean within(Span outer) {
+            return thread == outer.thread && !start.isBefore(outer.start) && !end.isAfter(outer.end);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Uso: <grabación.jfr> [top=10]");
+            System.exit(1);
+        }
+        int top = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+        var spans = new ArrayList<Span>();
+        for (RecordedEvent e : RecordingFile.readAllEvents(Path.of(args[0]))) {
+            String name = e.getEventType().getName();
+            if (!name.startsWith("com.site.")) continue;
+            long thread = e.getThread() == null ? -1 : e.getThread().getJavaThreadId();
+            spans.add(new Span(key(name, e), thread, e.getStartTime(), e.getEndTime()));
+        }
+        if (spans.isEmpty()) {
+            System.out.println("La grabación no tiene eventos com.site.*");
+            return;
+        }
+
+        printLatencies(spans);
+        printSlowestLogins(spans, top);
+    }
+
+    /** Nombre corto más los campos que distinguen la operación. */
+    private static String key(String name, RecordedEvent e) {
+        String shortName = name.substring("com.site.".length());
+        return switch (name) {
+            case "com.site.AuthPhase" -> shortName + " " + e.getString("operation") + "/" + e.getString("phase")
+                    + " " + e.getString("outcome");
+            case "com.site.Login" -> shortName + " " + e.getString("outcome");
+            case "com.site.TokenRedeem" -> shortName + " " + e.getString("flow") + " " + e.getString("outcome");
+            case "com.site.MailSend" -> shortName + " " + e.getString("outcome");
+            default -> shortName;
+        };
+    }
+
+    private static void printLatencies(List<Span> spans) {
+        var byKey = new TreeMap<String, List<Duration>>();
+        for (Span s : spans) byKey.computeIfAbsent(s.key(), k -> new ArrayList<>()).add(s.duration());
+
+        System.out.printf(Locale.ROOT, "%-48s %8s %9s %9s %9s %9s%n", "operación", "count", "p50 ms", "p90 ms", "p99 ms", "max ms");
+        byKey.forEach((key, durations) -> {
+            durations.sort(Comparator.naturalOrder());
+            System.out.printf(Locale.ROOT, "%-48s %8d %9.2f %9.2f %9.2f %9.2f%n", key, durations.size(),
+                    ms(percentile(durations, 0.50)), ms(percentile(durations, 0.90)),
+                    ms(percentile(durations, 0.99)), ms(durations.get(durations.size() - 1)));
+        });
+    }
+
+    private static void printSlowestLogins(List<Span> spans, int top) {
+        var logins = spans.stream()
+                .filter(s -> s.key().startsWith("Login "))
+                .sorted(Comparator.comparing(Span::duration).reversed())
+                .limit(top)
+                .toList();
+        if (logins.isEmpty()) return;
+
+        // Eventos por hilo, ordenados por inicio, para buscar los anidados en cada login
+        var byThread = new HashMap<Long, List<Span>>();
+        for (Span s : spans) byThread.computeIfAbsent(s.thread(), k -> new ArrayList<>()).add(s);
+        byThread.values().forEach(l -> l.sort(Comparator.comparing(Span::start)));
+
+        System.out.printf(Locale.ROOT, "%nLogins más lentos (%d):%n", logins.size());
+        for (Span login : logins) {
+            System.out.printf(Locale.ROOT, "  %s  %.2f ms  (%s)%n", login.start(), ms(login.duration()), login.key());
+            var breakdown = new TreeMap<String, long[]>(); // clave -> {count, nanos}
+            for (Span s : byThread.getOrDefault(login.thread(), List.of())) {
+                if (s == login || !s.within(login)) continue;
+                long[] acc = breakdown.computeIfAbsent(s.key(), k -> new long[2]);
+                acc[0]++;
+                acc[1] += s.duration().toNanos();
+            }
+            long accounted = 0;
+            for (Map.Entry<String, long[]> en : breakdown.entrySet()) {
+                long[] acc = en.getValue();
+                System.out.printf(Locale.ROOT, "      %-44s ×%-4d %9.2f ms%n", en.getKey(), acc[0], acc[1] / 1e6);
+                if (en.getKey().startsWith("AuthPhase") || en.getKey().equals("db.ConnectionAcquire")) accounted += acc[1];
+            }
+            System.out.printf(Locale.ROOT, "      %-44s       %9.2f ms%n", "(fuera de fases medidas)",
+                    Math.max(0, login.duration().toNanos() - accounted) / 1e6);
+        }
+    }
+
+    private static Duration percentile(List<Duration> sorted, double p) {
+        int i = (int) Math.ceil(p * sorted.size()) - 1;
+        return sorted.get(Math.max(0, Math.min(i, sorted.size() - 1)));
+    }
+
+    private static double ms(Duration d) {
+        return d.toNanos() / 1e6;
+    }
+}
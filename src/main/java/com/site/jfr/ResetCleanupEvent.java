@@ -0,0 +1,17 @@
+package com.site.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** Una pasada de {@code PasswordResetCleanup}. */
+@Name("com.site.ResetCleanup")
+@Label("Password Reset Cleanup")
+@Category({"Site", "Auth"})
+@StackTrace(false)
+public class ResetCleanupEvent extends jdk.jfr.Event {
+
+    @Label("Removed")
+    public int removed;
+}
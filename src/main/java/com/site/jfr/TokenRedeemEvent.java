@@ -0,0 +1,32 @@
+package com.site.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** Canje de un token de un solo uso (verify|reset), con el mismo code que auth.token.outcome. */
+@Name("com.site.TokenRedeem")
+@Label("Token Redeem")
+@Category({"Site", "Auth"})
+@StackTrace(false)
+public class TokenRedeemEvent extends jdk.jfr.Event {
+
+    @Label("Flow")
+    public String flow;
+
+    @Label("Outcome")
+    public String outcome;
+
+    public static TokenRedeemEvent start(String flow) {
+        var e = new TokenRedeemEvent();
+        e.flow = flow;
+        e.begin();
+        return e;
+    }
+
+    public void finish(String outcome) {
+        this.outcome = outcome;
+        commit();
+    }
+}
@@ -0,0 +1,97 @@
+package com.site.metrics;
+
+import com.site.jfr.AuthPhaseEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Métricas por fase de los flujos de auth.
+ * <ul>
+ *   <li>{@code auth.phase} (timer): operation, phase, outcome — p.ej. login/bcrypt/ok.</li>
+ *   <li>{@code auth.token.outcome} (counter): flow (verify|reset), code.</li>
+ *   <li>{@code auth.password_reset.cleanup.removed} (counter): filas borradas por la limpieza.</li>
+ *   <li>{@code auth.token.request.suppressed} (counter): flow (verify|reset), peticiones ignoradas
+ *       por la ventana de enfriamiento.</li>
+ * </ul>
+ * Los meters se cachean por clave para no pasar por el registry en cada petición. Cada fase
+ * emite además un {@link AuthPhaseEvent} de JFR (sin coste si no hay grabación activa).
+ */
+@Component
+public class AuthMetrics {
+
+    public static final String OK = "ok";
+    public static final String ERROR = "error";
+
+    private final MeterRegistry registry;
+    private final ConcurrentMap<String, Timer> timers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Counter> tokenOutcomes = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Counter> suppressed = new ConcurrentHashMap<>();
+    private final Counter cleanupRemoved;
+
+    public AuthMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.cleanupRemoved = Counter.builder("auth.password_reset.cleanup.removed")
+                .description("Tokens de reset caducados o usados eliminados")
+                .register(registry);
+    }
+
+    /** Cronometra una fase; el outcome es "error" si la fase lanza. */
+    public <T> T time(String operation, String phase, Supplier<T> body) {
+        var event = new AuthPhaseEvent();
+        event.begin();
+        long start = System.nanoTime();
+        String outcome = ERROR;
+        try {
+            T result = body.get();
+            outcome = OK;
+            return result;
+        } finally {
+            timer(operation, phase, outcome).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            if (event.shouldCommit()) {
+                event.operation = operation;
+                event.phase = phase;
+                event.outcome = outcome;
+                event.commit();
+            }
+        }
+    }
+
+    public void time(String operation, String phase, Runnable body) {
+        time(operation, phase, () -> {
+            body.run();
+            return null;
+        });
+    }
+
+    public void tokenOutcome(String flow, String code) {
+        tokenOutcomes.computeIfAbsent(flow + '|' + code, k -> Counter.builder("auth.token.outcome")
+                .tag("flow", flow)
+                .tag("code", code)
+                .register(registry)).increment();
+    }
+
+    public void cooldownSuppressed(String flow) {
+        suppressed.computeIfAbsent(flow, k -> Counter.builder("auth.token.request.suppressed")
+                .tag("flow", flow)
+                .register(registry)).increment();
+    }
+
+    public void cleanupRemoved(int removed) {
+        cleanupRemoved.increment(removed);
+    }
+
+    private Timer timer(String operation, String phase, String outcome) {
+        return timers.computeIfAbsent(operation + '|' + phase + '|' + outcome, k -> Timer.builder("auth.phase")
+                .tag("operation", operation)
+                .tag("phase", phase)
+                .tag("outcome", outcome)
+                .register(registry));
+    }
+}
@@ -2,6 +2,7 @@ package com.site.security;
 
 import com.nimbusds.jose.jwk.source.ImmutableSecret;
 import com.nimbusds.jose.proc.SecurityContext;
+import com.site.auth.user.User;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
 import org.springframework.security.oauth2.jwt.*;
@@ -9,8 +10,12 @@ import org.springframework.stereotype.Service;
 
 import java.time.Instant;
 import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
+import static com.site.security.JwtUtils.*;
+
 @Service
 public class JWTService {
 
@@ -18,14 +23,40 @@ public class JWTService {
     private final long expirationSeconds;
     private final String issuer;
 
+    private final boolean levelClaim;
+    private final boolean rolesClaim;
+    private final int adminLevel;
+
     public JWTService(@Value("${app.jwt.secret}") String secretB64,
                       @Value("${app.jwt.expiration-seconds:3600}") long expirationSeconds,
-                      @Value("${app.jwt.issuer:opsimulator}") String issuer) {
+                      @Value("${app.jwt.issuer:opsimulator}") String issuer,
+                      @Value("${app.jwt.claims.level:true}") boolean levelClaim,
+                      @Value("${app.jwt.claims.roles:true}") boolean rolesClaim,
+                      @Value("${app.jwt.admin-level:100}") int adminLevel) {
 
         byte[] key = Base64.getDecoder().decode(secretB64);
         this.encoder = new NimbusJwtEncoder(new ImmutableSecret<SecurityContext>(key));
         this.expirationSeconds = expirationSeconds;
         this.issuer = issuer;
+        this.levelClaim = levelClaim;
+        this.rolesClaim = rolesClaim;
+        this.adminLevel = adminLevel;
+    }
+
+    /**
+     * Token de sesión con {@code uid} y, según {@code app.jwt.claims.*}, {@code roles} (de ellos
+     * salen las authorities, sin cargar el usuario) y {@code level} (informativo para el cliente).
+     * Valen hasta que el token expira. No lleva {@code email_verified}: solo se emite a usuarios
+     * ya verificados (el login rechaza los que no lo están), así que siempre valdría true.
+     */
+    public String generate(User user) {
+        var claims = new HashMap<String, Object>(3);
+        claims.put(UID, user.getId());
+        if (levelClaim) claims.put(LEVEL, user.getLevel());
+        if (rolesClaim) {
+            claims.put(ROLES, user.getLevel() >= adminLevel ? List.of("USER", "ADMIN") : List.of("USER"));
+        }
+        return generate(user.getUsername(), claims);
     }
 
     public String generate(String username, Map<String, Object> extraClaims) {
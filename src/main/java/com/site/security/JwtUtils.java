@@ -5,10 +5,14 @@ import org.springframework.security.oauth2.jwt.Jwt;
 public final class JwtUtils {
     private JwtUtils() {}
 
+    public static final String UID = "uid";
+    public static final String LEVEL = "level";
+    public static final String ROLES = "roles";
+
     /** Devuelve el uid del JWT o null si no está/vale. */
     public static Long getUid(Jwt jwt) {
         if (jwt == null) return null;
-        Object claim = jwt.getClaim("uid");
+        Object claim = jwt.getClaim(UID);
         if (claim == null) return null;
         if (claim instanceof Number n) return n.longValue();
         try { return Long.valueOf(String.valueOf(claim)); } catch (Exception e) { return null; }
@@ -0,0 +1,34 @@
+package com.site.security;
+
+import com.site.auth.user.UserActivityTracker;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Marca la última actividad de cada petición autenticada con JWT. Solo toca memoria; la
+ * escritura la hace {@link UserActivityTracker#flush()}. Va justo después del filtro bearer.
+ */
+class LastSeenFilter extends OncePerRequestFilter {
+
+    private final UserActivityTracker activity;
+
+    LastSeenFilter(UserActivityTracker activity) {
+        this.activity = activity;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (SecurityContextHolder.getContext().getAuthentication() instanceof JwtAuthenticationToken token) {
+            activity.recordSeen(JwtUtils.getUid(token.getToken()));
+        }
+        chain.doFilter(request, response);
+    }
+}
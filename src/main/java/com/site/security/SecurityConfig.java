@@ -1,31 +1,44 @@
 package com.site.security;
 
+import com.site.auth.user.UserActivityTracker;
+import com.site.metrics.AuthMetrics;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
 import org.springframework.http.HttpMethod;
 import org.springframework.security.config.Customizer;
+import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
+import org.springframework.security.oauth2.server.resource.web.authentication.BearerTokenAuthenticationFilter;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
 import javax.crypto.spec.SecretKeySpec;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Base64;
+import java.util.Collection;
 import java.util.List;
 
 @Configuration
 @EnableWebSecurity
+@EnableMethodSecurity
 public class SecurityConfig {
 
     private final String[] permitAll;
@@ -38,8 +51,32 @@ public class SecurityConfig {
         this.jwtSecretB64 = jwtSecretB64;
     }
 
+    /**
+     * Peticiones al puerto del actuator ({@code management.server.port}): health, info y
+     * prometheus abiertos para sondas y scraper, el resto denegado. Ese puerto no se publica;
+     * si coincidiera con el de la API, las métricas quedarían expuestas, así que no se arranca.
+     */
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    @Order(1)
+    public SecurityFilterChain managementFilterChain(HttpSecurity http,
+                                                     @Value("${management.server.port:-1}") int managementPort,
+                                                     @Value("${server.port:8080}") int serverPort) throws Exception {
+        if (managementPort > 0 && managementPort == serverPort) {
+            throw new IllegalStateException("management.server.port debe ser distinto de server.port");
+        }
+        http
+                .securityMatcher(req -> managementPort > 0 && req.getLocalPort() == managementPort)
+                .csrf(AbstractHttpConfigurer::disable)
+                .sessionManagement(sm -> sm.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+                .authorizeHttpRequests(auth -> auth
+                        .requestMatchers(EndpointRequest.to("health", "info", "prometheus")).permitAll()
+                        .anyRequest().denyAll());
+        return http.build();
+    }
+
+    @Bean
+    @Order(2)
+    public SecurityFilterChain securityFilterChain(HttpSecurity http, UserActivityTracker activity) throws Exception {
         http
                 // Usa el bean corsConfigurationSource() de abajo
                 .cors(Customizer.withDefaults())
@@ -53,7 +90,8 @@ public class SecurityConfig {
                     auth.requestMatchers(HttpMethod.OPTIONS, "/**").permitAll();
                     auth.anyRequest().authenticated();
                 })
-                .oauth2ResourceServer(oauth2 -> oauth2.jwt(Customizer.withDefaults()))
+                .oauth2ResourceServer(oauth2 -> oauth2.jwt(jwt -> jwt.jwtAuthenticationConverter(jwtAuthenticationConverter())))
+                .addFilterAfter(new LastSeenFilter(activity), BearerTokenAuthenticationFilter.class)
                 .exceptionHandling(ex -> ex
                         .authenticationEntryPoint((req, res, e) -> res.sendError(HttpServletResponse.SC_UNAUTHORIZED))
                         .accessDeniedHandler((req, res, e) -> res.sendError(HttpServletResponse.SC_FORBIDDEN))
@@ -94,10 +132,28 @@ public class SecurityConfig {
         return source;
     }
 
+    /** Decoder HMAC; cada decode se mide como auth.phase{operation=jwt,phase=decode}. */
     @Bean
-    public JwtDecoder jwtDecoder() {
+    public JwtDecoder jwtDecoder(AuthMetrics metrics) {
         byte[] key = Base64.getDecoder().decode(jwtSecretB64);
-        return NimbusJwtDecoder.withSecretKey(new SecretKeySpec(key, "HmacSHA256")).build();
+        JwtDecoder nimbus = NimbusJwtDecoder.withSecretKey(new SecretKeySpec(key, "HmacSHA256")).build();
+        return new TimedJwtDecoder(nimbus, metrics);
+    }
+
+    /** Authorities a partir del claim {@code roles} del token ({@code ROLE_*}). Sin consultas a BD. */
+    @Bean
+    public JwtAuthenticationConverter jwtAuthenticationConverter() {
+        var converter = new JwtAuthenticationConverter();
+        converter.setJwtGrantedAuthoritiesConverter(SecurityConfig::authorities);
+        return converter;
+    }
+
+    static Collection<GrantedAuthority> authorities(Jwt jwt) {
+        List<String> roles = jwt.getClaimAsStringList(JwtUtils.ROLES);
+        if (roles == null) return List.of();
+        var out = new ArrayList<GrantedAuthority>(roles.size());
+        for (String r : roles) out.add(new SimpleGrantedAuthority("ROLE_" + r));
+        return out;
     }
 
     @Bean
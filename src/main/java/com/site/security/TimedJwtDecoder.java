@@ -0,0 +1,28 @@
+package com.site.security;
+
+import com.site.metrics.AuthMetrics;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+/** Decoder que mide cada decode como {@code auth.phase{operation=jwt,phase=decode}}. */
+public final class TimedJwtDecoder implements JwtDecoder {
+
+    private final JwtDecoder delegate;
+    private final AuthMetrics metrics;
+
+    TimedJwtDecoder(JwtDecoder delegate, AuthMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Jwt decode(String token) throws JwtException {
+        return metrics.time("jwt", "decode", () -> delegate.decode(token));
+    }
+
+    /** El decoder sin medir, para lo que no es tráfico real (calentamiento). */
+    public JwtDecoder untimed() {
+        return delegate;
+    }
+}
@@ -0,0 +1,178 @@
+package com.site.warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.site.auth.user.User;
+import com.site.auth.user.UserRepository;
+import com.site.security.JWTService;
+import com.site.security.TimedJwtDecoder;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Calienta el JIT antes de aceptar tráfico: bcrypt, firma y decode de JWT, Jackson y las
+ * consultas del repositorio contra un usuario desechable (la transacción se deshace).
+ *
+ * <p>Corre como ApplicationRunner: Spring Boot no publica {@code ACCEPTING_TRAFFIC} hasta que
+ * terminan los runners, así que {@code /actuator/health/readiness} da 503 mientras dura.
+ * {@code app.warmup.completed.timestamp} indica cuándo el nodo alcanzó el estado estable.
+ * {@code app.warmup.enabled} se mira al arrancar, no con una condición, para que valga con AOT.
+ */
+@Component
+public class WarmupRunner implements ApplicationRunner {
+    private static final Logger log = LoggerFactory.getLogger(WarmupRunner.class);
+
+    private static final String PASSWORD = "warmup-password";
+
+    private final PasswordEncoder encoder;
+    private final JWTService jwtService;
+    private final JwtDecoder jwtDecoder;
+    private final UserRepository userRepo;
+    private final TransactionTemplate tx;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry registry;
+
+    private final int bcryptIterations;
+    private final int jwtIterations;
+    private final int dbIterations;
+    private final Duration maxDuration;
+    private final boolean enabled;
+
+    private final AtomicLong completedAt = new AtomicLong();
+    private String hash;
+
+    public WarmupRunner(PasswordEncoder encoder,
+                        JWTService jwtService,
+                        JwtDecoder jwtDecoder,
+                        UserRepository userRepo,
+                        PlatformTransactionManager txManager,
+                        ObjectMapper objectMapper,
+                        MeterRegistry registry,
+                        @Value("${app.warmup.bcrypt-iterations:20}") int bcryptIterations,
+                        @Value("${app.warmup.jwt-iterations:2000}") int jwtIterations,
+                        @Value("${app.warmup.db-iterations:200}") int dbIterations,
+                        @Value("${app.warmup.max-duration:30s}") Duration maxDuration,
+                        @Value("${app.warmup.enabled:true}") boolean enabled) {
+        this.encoder = encoder;
+        this.jwtService = jwtService;
+        // Sin medir: los decodes del calentamiento no deben entrar en los percentiles de auth.phase
+        this.jwtDecoder = jwtDecoder instanceof TimedJwtDecoder timed ? timed.untimed() : jwtDecoder;
+        this.userRepo = userRepo;
+        this.tx = new TransactionTemplate(txManager);
+        this.objectMapper = objectMapper;
+        this.registry = registry;
+        this.bcryptIterations = bcryptIterations;
+        this.jwtIterations = jwtIterations;
+        this.dbIterations = dbIterations;
+        this.maxDuration = maxDuration;
+        this.enabled = enabled;
+        if (!enabled) return;
+
+        Gauge.builder("app.warmup.completed", completedAt, v -> v.get() > 0 ? 1 : 0)
+                .description("1 cuando el calentamiento ha terminado")
+                .register(registry);
+        Gauge.builder("app.warmup.completed.timestamp", completedAt, AtomicLong::get)
+                .description("Epoch (s) en que terminó el calentamiento")
+                .register(registry);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) return;
+        long start = System.nanoTime();
+        long deadline = start + maxDuration.toNanos();
+
+        int bcrypt = phase("bcrypt", bcryptIterations, deadline, this::bcryptOnce);
+        int jwt = phase("jwt", jwtIterations, deadline, this::jwtOnce);
+        int db = 0;
+        try {
+            db = dbPhase(deadline);
+        } catch (RuntimeException e) {
+            log.warn("Calentamiento de BD interrumpido: {}", e.getMessage());
+        }
+
+        long elapsed = System.nanoTime() - start;
+        Timer.builder("app.warmup.duration").register(registry).record(elapsed, TimeUnit.NANOSECONDS);
+        completedAt.set(System.currentTimeMillis() / 1000);
+        log.info("Calentamiento terminado en {} ms (bcrypt={}, jwt={}, db={})",
+                TimeUnit.NANOSECONDS.toMillis(elapsed), bcrypt, jwt, db);
+    }
+
+    private int phase(String name, int iterations, long deadline, Runnable body) {
+        int done = 0;
+        try {
+            while (done < iterations && System.nanoTime() < deadline) {
+                body.run();
+                done++;
+            }
+        } catch (RuntimeException e) {
+            log.warn("Calentamiento '{}' interrumpido: {}", name, e.getMessage());
+        }
+        registry.counter("app.warmup.iterations", "phase", name).increment(done);
+        return done;
+    }
+
+    /** Mismo camino que UserService.authenticate: un acierto y un fallo por iteración. */
+    private void bcryptOnce() {
+        if (hash == null) hash = encoder.encode(PASSWORD);
+        encoder.matches(PASSWORD, hash);
+        encoder.matches("wrong-" + PASSWORD, hash);
+    }
+
+    private void jwtOnce() {
+        String token = jwtService.generate("__warmup__", Map.of("uid", 0L));
+        jwtDecoder.decode(token);
+        try {
+            objectMapper.writeValueAsBytes(Map.of(
+                    "tokenType", "Bearer",
+                    "accessToken", token,
+                    "expiresIn", jwtService.getExpirationSeconds()));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** Inserta un usuario desechable y repite las consultas de auth; todo se deshace al final. */
+    private int dbPhase(long deadline) {
+        Integer done = tx.execute(status -> {
+            status.setRollbackOnly();
+            String suffix = UUID.randomUUID().toString().substring(0, 8);
+            var u = new User();
+            u.setUsername("__warmup_" + suffix);
+            u.setEmail("warmup_" + suffix + "@warmup.local");
+            u.setPasswordHash(hash != null ? hash : encoder.encode(PASSWORD));
+            u = userRepo.saveAndFlush(u);
+
+            int i = 0;
+            while (i < dbIterations && System.nanoTime() < deadline) {
+                userRepo.existsByUsername(u.getUsername());
+                userRepo.existsByEmail(u.getEmail());
+                userRepo.findByUsername(u.getUsername());
+                userRepo.findByEmail(u.getEmail());
+                userRepo.findByEmailIgnoreCase(u.getEmail());
+                userRepo.findById(u.getId());
+                i++;
+            }
+            return i;
+        });
+        int n = done == null ? 0 : done;
+        registry.counter("app.warmup.iterations", "phase", "db").increment(n);
+        return n;
+    }
+}
@@ -0,0 +1,43 @@
+-- Esquema inicial: lo que ddl-auto=update creaba a partir de las entidades.
+-- En bases ya existentes Flyway la marca como aplicada (baseline-on-migrate) sin ejecutarla.
+
+create table users (
+    id            bigint generated by default as identity primary key,
+    version       bigint                      not null,
+    username      varchar(50)                 not null,
+    email         varchar(120)                not null,
+    password_hash varchar(255)                not null,
+    enabled       boolean                     not null,
+    created_at    timestamp(6) with time zone not null,
+    updated_at    timestamp(6) with time zone not null,
+    level         integer                     not null,
+    constraint uk_users_username unique (username),
+    constraint uk_users_email unique (email)
+);
+
+create table email_verification_tokens (
+    id         bigint generated by default as identity primary key,
+    user_id    bigint                      not null,
+    token_hash varchar(64)                 not null,
+    expires_at timestamp(6) with time zone not null,
+    used_at    timestamp(6) with time zone,
+    created_at timestamp(6) with time zone not null,
+    constraint uk_evt_token_hash unique (token_hash),
+    constraint fk_evt_user foreign key (user_id) references users (id)
+);
+
+create index idx_evt_user on email_verification_tokens (user_id);
+
+create table password_reset_tokens (
+    id         bigint generated by default as identity primary key,
+    user_id    bigint                      not null,
+    token_hash varchar(64)                 not null,
+    expires_at timestamp(6) with time zone not null,
+    used       boolean                     not null,
+    created_at timestamp(6) with time zone not null,
+    constraint fk_prt_user foreign key (user_id) references users (id)
+);
+
+create unique index idx_prt_token_hash on password_reset_tokens (token_hash);
+create index idx_prt_user on password_reset_tokens (user_id);
+create index idx_prt_expires on password_reset_tokens (expires_at);
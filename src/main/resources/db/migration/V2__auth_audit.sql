@@ -0,0 +1,18 @@
+-- Auditoría de auth (AuditLog). Particionada por mes: AuditPartitionMaintainer crea las
+-- particiones por adelantado y para purgar basta con hacer DROP de las antiguas.
+-- Sin FK a users: las escrituras van por lotes y no deben bloquear ni depender de la fila.
+
+create table auth_audit (
+    occurred_at timestamp(6) with time zone not null,
+    event_type  varchar(32)                 not null,
+    user_id     bigint,
+    subject     varchar(120),
+    remote_addr varchar(45),
+    detail      varchar(64)
+) partition by range (occurred_at);
+
+create table auth_audit_default partition of auth_audit default;
+
+create index ix_auth_audit_user on auth_audit (user_id, occurred_at);
+create index ix_auth_audit_occurred on auth_audit using brin (occurred_at);
+create index ix_auth_audit_remote_addr on auth_audit (remote_addr, occurred_at);
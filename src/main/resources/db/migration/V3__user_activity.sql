@@ -0,0 +1,8 @@
+-- Último login / última actividad, fuera de users para no tocar @Version ni bloquear la fila
+-- del usuario. UserActivityTracker la actualiza por lotes (upsert). Sin FK a propósito.
+
+create table user_activity (
+    user_id       bigint primary key,
+    last_login_at timestamp(6) with time zone,
+    last_seen_at  timestamp(6) with time zone
+);
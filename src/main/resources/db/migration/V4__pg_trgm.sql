@@ -0,0 +1,2 @@
+-- Búsqueda por subcadena en el directorio de usuarios (UserDirectoryService): índices trigram.
+create extension if not exists pg_trgm;
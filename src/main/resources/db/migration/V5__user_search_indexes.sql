@@ -0,0 +1,9 @@
+-- CONCURRENTLY para no bloquear escrituras en users mientras se construyen; Flyway ejecuta
+-- esta migración fuera de transacción (solo contiene sentencias no transaccionales).
+-- lower(...) coincide con la expresión de las consultas: LIKE '%x%' usa el GIN con >= 3 caracteres.
+
+create index concurrently if not exists ix_users_username_trgm on users using gin (lower(username) gin_trgm_ops);
+create index concurrently if not exists ix_users_email_trgm on users using gin (lower(email) gin_trgm_ops);
+
+-- Paginación keyset: order by created_at desc, id desc
+create index concurrently if not exists ix_users_created_at_id on users (created_at, id);
@@ -0,0 +1,17 @@
+-- Directorio global de usuarios para el sharding (app.sharding): de qué shard es cada usuario y
+-- unicidad de usuario/email entre shards. Solo se usa el del shard 0; en el resto queda vacío.
+-- Claves normalizadas (minúsculas). user_id es null mientras el alta no ha terminado.
+
+create table user_directory (
+    username varchar(50)  primary key,
+    email    varchar(120) not null,
+    user_id  bigint,
+    shard    integer      not null,
+    constraint uk_user_directory_email unique (email),
+    constraint uk_user_directory_user_id unique (user_id)
+);
+
+-- Usuarios existentes (base única de antes del sharding): todos en el shard 0
+insert into user_directory (username, email, user_id, shard)
+select lower(username), lower(email), id, 0 from users
+on conflict do nothing;
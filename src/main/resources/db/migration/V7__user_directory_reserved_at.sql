@@ -0,0 +1,7 @@
+-- Cuándo se reservó cada fila del directorio. Una reserva que se queda sin user_id (la instancia
+-- cae a mitad de alta o falla el assign tras el commit) se recupera pasado
+-- app.sharding.reservation-timeout: se completa si el usuario llegó a crearse y si no se borra.
+
+alter table user_directory add column reserved_at timestamp(6) with time zone not null default now();
+
+create index ix_user_directory_pending on user_directory (reserved_at) where user_id is null;
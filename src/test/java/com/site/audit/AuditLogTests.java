@@ -0,0 +1,163 @@
+package com.site.audit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Ciclo de vida del consumidor (start/stop con vaciado) y recuento de publicados y descartados. */
+class AuditLogTests {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final RecordingWriter writer = new RecordingWriter();
+    private AuditLog audit;
+
+    @AfterEach
+    void stopConsumer() {
+        if (audit != null) audit.stop();
+    }
+
+    @Test
+    void stopDrainsPendingEventsBeforeReturning() {
+        // Intervalo largo: sin el unpark de stop() el consumidor seguiría dormido
+        audit = auditLog(1024, Duration.ofHours(1), AuditLog.Overflow.DROP, Duration.ZERO);
+        audit.start();
+        assertTrue(audit.isRunning());
+        for (int i = 0; i < 10; i++) audit.record(AuditEventType.LOGIN_OK, (long) i, null);
+
+        audit.stop();
+
+        assertFalse(audit.isRunning());
+        assertEquals(10, writer.events.size());
+        assertEquals(10, published());
+        assertEquals(0, dropped("full"));
+    }
+
+    @Test
+    void eventsRecordedBeforeStartAreWrittenOnceItRuns() {
+        audit = auditLog(1024, Duration.ofMillis(1), AuditLog.Overflow.DROP, Duration.ZERO);
+        for (int i = 0; i < 5; i++) audit.record(AuditEventType.LOGIN_OK, (long) i, null);
+        assertTrue(writer.events.isEmpty());
+
+        audit.start();
+        audit.stop();
+        assertEquals(5, writer.events.size());
+    }
+
+    @Test
+    void dropModeCountsEventsThatDidNotFit() {
+        audit = auditLog(8, Duration.ofMillis(1), AuditLog.Overflow.DROP, Duration.ZERO);
+        for (int i = 0; i < 20; i++) audit.record(AuditEventType.LOGIN_OK, (long) i, null);
+
+        assertEquals(8, published());
+        assertEquals(12, dropped("full"));
+        audit.start();
+        audit.stop();
+        assertEquals(8, writer.events.size());
+    }
+
+    @Test
+    void waitModeDropsAfterMaxWait() {
+        audit = auditLog(2, Duration.ofMillis(1), AuditLog.Overflow.WAIT, Duration.ofMillis(2));
+        for (int i = 0; i < 5; i++) audit.record(AuditEventType.LOGIN_OK, (long) i, null);
+
+        assertEquals(2, published());
+        assertEquals(3, dropped("full"));
+    }
+
+    @Test
+    void writeErrorsAreCountedPerEvent() {
+        writer.failing = true;
+        audit = auditLog(1024, Duration.ofHours(1), AuditLog.Overflow.DROP, Duration.ZERO);
+        audit.start();
+        for (int i = 0; i < 7; i++) audit.record(AuditEventType.LOGIN_OK, (long) i, null);
+        audit.stop();
+
+        assertEquals(7, dropped("write_error"));
+    }
+
+    @Test
+    void concurrentProducersAreAllAccountedFor() throws Exception {
+        int producers = 4, perProducer = 20_000;
+        audit = auditLog(256, Duration.ofMillis(1), AuditLog.Overflow.DROP, Duration.ZERO);
+        audit.start();
+
+        var start = new CountDownLatch(1);
+        var threads = new ArrayList<Thread>();
+        for (int p = 0; p < producers; p++) {
+            long producer = p;
+            var t = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perProducer; i++) {
+                    audit.record(AuditEventType.LOGIN_OK, (producer << 32) | i, null);
+                }
+            });
+            t.setDaemon(true);
+            t.start();
+            threads.add(t);
+        }
+        start.countDown();
+        for (var t : threads) t.join();
+        audit.stop();
+
+        // Lo aceptado se escribe entero y una sola vez; lo demás consta como descartado
+        int written = writer.events.size();
+        assertEquals(published(), written);
+        assertEquals(producers * perProducer, written + (int) dropped("full"));
+        assertEquals(written, new HashSet<>(writer.events.stream().map(AuditEvent::userId).toList()).size());
+    }
+
+    @Test
+    void disabledRecordsNothingAndStartsNoConsumer() {
+        audit = new AuditLog(writer, registry, false, 8, 500, Duration.ofMillis(1), AuditLog.Overflow.DROP, Duration.ZERO);
+        audit.start();
+        audit.record(AuditEventType.LOGIN_OK, 1L, null);
+
+        assertFalse(audit.isRunning());
+        assertEquals(0, published());
+        audit.stop();
+        assertTrue(writer.events.isEmpty());
+    }
+
+    private AuditLog auditLog(int capacity, Duration flushInterval, AuditLog.Overflow overflow, Duration maxWait) {
+        return new AuditLog(writer, registry, true, capacity, 500, flushInterval, overflow, maxWait);
+    }
+
+    private double published() {
+        return registry.get("auth.audit.published").counter().count();
+    }
+
+    private double dropped(String reason) {
+        return registry.get("auth.audit.dropped").tag("reason", reason).counter().count();
+    }
+
+    /** Guarda los lotes en memoria en vez de insertarlos. */
+    private static final class RecordingWriter extends AuditWriter {
+        final List<AuditEvent> events = new CopyOnWriteArrayList<>();
+        volatile boolean failing;
+
+        RecordingWriter() {
+            super(null, "site_schema", 500);
+        }
+
+        @Override
+        void write(List<AuditEvent> batch) {
+            if (failing) throw new IllegalStateException("sin BD");
+            events.addAll(batch);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.site.audit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Varios productores y un consumidor: ni pérdidas ni duplicados, y el lleno se rechaza sin bloquear. */
+class AuditRingBufferTests {
+
+    @Test
+    void concurrentProducersLoseNothingAndDuplicateNothing() throws Exception {
+        int producers = 8, perProducer = 20_000;
+        var buffer = new AuditRingBuffer(1024);
+        var start = new CountDownLatch(1);
+        var threads = new ArrayList<Thread>();
+        for (int p = 0; p < producers; p++) {
+            long producer = p;
+            threads.add(startDaemon(() -> {
+                await(start);
+                for (int i = 0; i < perProducer; i++) {
+                    var e = event(producer, i);
+                    while (!buffer.offer(e)) Thread.yield(); // lleno: esperar al consumidor
+                }
+            }));
+        }
+
+        // Consumidor: el orden de cada productor se conserva
+        var next = new int[producers];
+        var received = new ArrayList<AuditEvent>(producers * perProducer);
+        var batch = new ArrayList<AuditEvent>();
+        start.countDown();
+        while (received.size() < producers * perProducer) {
+            if (buffer.drainTo(batch, 500) == 0) {
+                Thread.yield();
+                continue;
+            }
+            for (var e : batch) {
+                int producer = (int) (e.userId() >>> 32);
+                assertEquals(next[producer]++, (int) (e.userId() & 0xffffffffL), "orden del productor " + producer);
+            }
+            received.addAll(batch);
+            batch.clear();
+        }
+        for (var t : threads) t.join();
+
+        assertEquals(0, buffer.drainTo(batch, 500), "no debe quedar nada");
+        assertEquals(0, buffer.size());
+        assertEquals(producers * perProducer, received.stream().map(AuditEvent::userId).distinct().count());
+    }
+
+    @Test
+    void fullBufferRejectsWithoutBlockingAndRecovers() {
+        var buffer = new AuditRingBuffer(8);
+        for (int i = 0; i < 8; i++) assertTrue(buffer.offer(event(0, i)));
+        assertFalse(buffer.offer(event(0, 8)));
+        assertEquals(8, buffer.size());
+
+        var out = new ArrayList<AuditEvent>();
+        assertEquals(3, buffer.drainTo(out, 3));
+        assertEquals(List.of(0L, 1L, 2L), out.stream().map(AuditEvent::userId).toList());
+        for (int i = 8; i < 11; i++) assertTrue(buffer.offer(event(0, i)));
+        assertFalse(buffer.offer(event(0, 11)));
+
+        out.clear();
+        assertEquals(8, buffer.drainTo(out, 100));
+        assertEquals(List.of(3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L), out.stream().map(AuditEvent::userId).toList());
+    }
+
+    @Test
+    void concurrentOverflowAcceptsExactlyTheCapacity() throws Exception {
+        int producers = 4, perProducer = 1_000, capacity = 64;
+        var buffer = new AuditRingBuffer(capacity);
+        var accepted = new AtomicInteger();
+        var rejected = new AtomicInteger();
+        var start = new CountDownLatch(1);
+        var threads = new ArrayList<Thread>();
+        for (int p = 0; p < producers; p++) {
+            long producer = p;
+            threads.add(startDaemon(() -> {
+                await(start);
+                for (int i = 0; i < perProducer; i++) {
+                    if (buffer.offer(event(producer, i))) accepted.incrementAndGet(); else rejected.incrementAndGet();
+                }
+            }));
+        }
+        start.countDown();
+        for (var t : threads) t.join();
+
+        assertEquals(capacity, accepted.get());
+        assertEquals(producers * perProducer - capacity, rejected.get());
+        var out = new ArrayList<AuditEvent>();
+        assertEquals(capacity, buffer.drainTo(out, 1_000));
+        assertEquals(capacity, new HashSet<>(out.stream().map(AuditEvent::userId).toList()).size());
+    }
+
+    @Test
+    void capacityMustBeAPowerOfTwo() {
+        assertThrows(IllegalArgumentException.class, () -> new AuditRingBuffer(1000));
+        assertThrows(IllegalArgumentException.class, () -> new AuditRingBuffer(1));
+        assertEquals(1024, new AuditRingBuffer(1024).capacity());
+    }
+
+    /** El userId lleva productor y secuencia para poder comprobar orden y duplicados. */
+    private static AuditEvent event(long producer, int seq) {
+        return new AuditEvent(0, AuditEventType.LOGIN_OK, (producer << 32) | seq, null, null, null);
+    }
+
+    /** Daemon: si falla una aserción, un productor esperando sitio no deja colgada la JVM. */
+    private static Thread startDaemon(Runnable body) {
+        var t = new Thread(body);
+        t.setDaemon(true);
+        t.start();
+        return t;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,286 @@
+package com.site.auth;
+
+import com.site.auth.mail.MailSenderPort;
+import com.site.auth.password.PasswordResetToken;
+import com.site.auth.password.PasswordResetTokenRepository;
+import com.site.auth.user.User;
+import com.site.auth.user.UserRepository;
+import com.site.auth.verification.EmailVerificationToken;
+import com.site.auth.verification.EmailVerificationTokenRepository;
+import com.site.security.JWTService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Presupuesto de SQL por endpoint: número máximo de sentencias y de conexiones pedidas al pool
+ * en una llamada. Detecta N+1 y viajes extra a la BD antes de que lleguen a producción.
+ *
+ * <p>Cuenta a nivel JDBC (envolviendo el DataSource), así que incluye también lo que no pasa
+ * por Hibernate. Se salta si no hay Docker.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@SpringBootTest(properties = {
+        "app.warmup.enabled=false",
+        "app.seed.enabled=false",
+        "app.audit.enabled=false",
+        "app.user-activity.enabled=false",
+        "app.jwt.secret=dGVzdC1vbmx5LXNlY3JldC1mb3ItdGhlLXNxbC1idWRnZXQtdGVzdHM=",
+        "app.mail.from=tests@localhost",
+        "app.introspect.api-key=tests-only"
+})
+@AutoConfigureMockMvc
+class AuthSqlBudgetTests {
+
+    @Container
+    @ServiceConnection
+    static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @MockitoBean
+    MailSenderPort mail;
+
+    @Autowired MockMvc mvc;
+    @Autowired SqlRecorder sql;
+    @Autowired UserRepository users;
+    @Autowired EmailVerificationTokenRepository verificationTokens;
+    @Autowired PasswordResetTokenRepository resetTokens;
+    @Autowired PasswordEncoder encoder;
+    @Autowired JWTService jwtService;
+
+    private String name;
+
+    @BeforeEach
+    void uniqueName() {
+        name = "b" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    @Test
+    void register() throws Exception {
+        // existe usuario, existe email, insert usuario | borrar tokens pendientes, insert token
+        expectBudget("register", 5, 2, () -> mvc.perform(post("/auth/register")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json("username", name, "email", name + "@test.local", "password", "secret-1")))
+                .andExpect(status().isOk()));
+    }
+
+    @Test
+    void login() throws Exception {
+        user(true);
+        expectBudget("login", 1, 1, () -> mvc.perform(post("/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json("usernameOrEmail", name, "password", "secret-1")))
+                .andExpect(status().isOk()));
+    }
+
+    @Test
+    void verifyEmail() throws Exception {
+        var u = user(false);
+        var t = new EmailVerificationToken();
+        t.setUser(u);
+        t.setTokenHash(sha256("verify-" + name));
+        t.setExpiresAt(Instant.now().plusSeconds(3600));
+        verificationTokens.save(t);
+
+        // token + usuario, update token, update usuario, borrar pendientes
+        expectBudget("verify-email", 4, 1, () -> mvc.perform(get("/auth/verify-email")
+                .param("token", "verify-" + name))
+                .andExpect(status().isFound()));
+    }
+
+    @Test
+    void forgotPassword() throws Exception {
+        user(true);
+        // usuario por email, borrar solicitudes previas, insert token
+        expectBudget("forgot-password", 3, 1, () -> mvc.perform(post("/auth/forgot-password")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json("email", name + "@test.local")))
+                .andExpect(status().isNoContent()));
+    }
+
+    @Test
+    void resetPassword() throws Exception {
+        var u = user(true);
+        var t = new PasswordResetToken();
+        t.setUser(u);
+        t.setTokenHash(sha256("reset-" + name));
+        t.setExpiresAt(Instant.now().plusSeconds(1800));
+        resetTokens.save(t);
+
+        // token + usuario, update usuario, update token
+        expectBudget("reset-password", 3, 1, () -> mvc.perform(post("/auth/reset-password")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json("token", "reset-" + name, "newPassword", "secret-2")))
+                .andExpect(status().isNoContent()));
+    }
+
+    @Test
+    void changeOwnPassword() throws Exception {
+        var u = user(true);
+        String jwt = jwtService.generate(u);
+        // usuario, update usuario
+        expectBudget("users/me/password", 2, 1, () -> mvc.perform(put("/auth/users/me/password")
+                .header("Authorization", "Bearer " + jwt)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json("currentPassword", "secret-1", "newPassword", "secret-2")))
+                .andExpect(status().isNoContent()));
+    }
+
+    @Test
+    void meNotModifiedFromCache() throws Exception {
+        var u = user(true);
+        String jwt = jwtService.generate(u);
+        String etag = "\"" + u.getId() + "-" + u.getVersion() + "\"";
+        mvc.perform(get("/auth/users/me").header("Authorization", "Bearer " + jwt)).andExpect(status().isOk());
+
+        // Ya en la caché: el 304 no toca la BD
+        expectBudget("users/me (304)", 0, 0, () -> mvc.perform(get("/auth/users/me")
+                .header("Authorization", "Bearer " + jwt)
+                .header("If-None-Match", etag))
+                .andExpect(status().isNotModified()));
+    }
+
+    // ===== helpers =====
+
+    private interface Call {
+        ResultActions run() throws Exception;
+    }
+
+    private void expectBudget(String endpoint, int maxStatements, int maxConnections, Call call) throws Exception {
+        sql.reset();
+        call.run();
+        List<String> statements = List.copyOf(sql.statements);
+        int connections = sql.connections.get();
+        if (statements.size() <= maxStatements && connections <= maxConnections) return;
+
+        var msg = new StringBuilder(endpoint).append(": presupuesto de SQL superado\n")
+                .append(line("sentencias", maxStatements, statements.size()))
+                .append(line("conexiones", maxConnections, connections))
+                .append("  SQL ejecutado:\n");
+        for (int i = 0; i < statements.size(); i++) {
+            msg.append(i < maxStatements ? "    " : "  + ").append(i + 1).append(". ")
+                    .append(statements.get(i)).append('\n');
+        }
+        fail(msg.toString());
+    }
+
+    private static String line(String what, int max, int actual) {
+        return "  %-11s máx %d, real %d%s%n".formatted(what, max, actual, actual > max ? "  <-- " + (actual - max) + " de más" : "");
+    }
+
+    private User user(boolean enabled) {
+        var u = new User();
+        u.setUsername(name);
+        u.setEmail(name + "@test.local");
+        u.setPasswordHash(encoder.encode("secret-1"));
+        u.setEnabled(enabled);
+        return users.save(u);
+    }
+
+    private static String json(String... kv) {
+        var sb = new StringBuilder("{");
+        for (int i = 0; i < kv.length; i += 2) {
+            if (i > 0) sb.append(',');
+            sb.append('"').append(kv[i]).append("\":\"").append(kv[i + 1]).append('"');
+        }
+        return sb.append('}').toString();
+    }
+
+    private static String sha256(String s) throws Exception {
+        byte[] d = MessageDigest.getInstance("SHA-256").digest(s.getBytes(StandardCharsets.UTF_8));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(d);
+    }
+
+    // ===== recuento JDBC =====
+
+    /** Conexiones pedidas y SQL preparado desde el último {@link #reset()}. */
+    static class SqlRecorder {
+        final AtomicInteger connections = new AtomicInteger();
+        final List<String> statements = new CopyOnWriteArrayList<>();
+
+        void reset() {
+            connections.set(0);
+            statements.clear();
+        }
+
+        Connection record(Connection target) {
+            connections.incrementAndGet();
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                        String m = method.getName();
+                        if ((m.equals("prepareStatement") || m.equals("prepareCall")) && args != null) {
+                            statements.add(String.valueOf(args[0]));
+                        }
+                        try {
+                            return method.invoke(target, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    });
+        }
+    }
+
+    @TestConfiguration
+    static class SqlRecorderConfig {
+
+        @Bean
+        SqlRecorder sqlRecorder() {
+            return new SqlRecorder();
+        }
+
+        /** Envuelve el DataSource de la app para contar conexiones y sentencias. */
+        @Bean
+        static BeanPostProcessor countingDataSource(ObjectProvider<SqlRecorder> recorder) {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (!(bean instanceof DataSource ds) || !beanName.equals("dataSource")) return bean;
+                    return new DelegatingDataSource(ds) {
+                        @Override
+                        public Connection getConnection() throws SQLException {
+                            return recorder.getObject().record(super.getConnection());
+                        }
+
+                        @Override
+                        public Connection getConnection(String username, String password) throws SQLException {
+                            return recorder.getObject().record(super.getConnection(username, password));
+                        }
+                    };
+                }
+            };
+        }
+    }
+}
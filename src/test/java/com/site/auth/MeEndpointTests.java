@@ -0,0 +1,116 @@
+package com.site.auth;
+
+import com.site.auth.mail.MailSenderPort;
+import com.site.auth.user.User;
+import com.site.auth.user.UserRepository;
+import com.site.security.JWTService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * GET /auth/users/me con ETag {@code "id-version"}: 304 mientras el usuario no cambia y 200 con
+ * ETag nuevo en cuanto cambia (la escritura invalida la caché). Se salta si no hay Docker.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@SpringBootTest(properties = {
+        "app.warmup.enabled=false",
+        "app.seed.enabled=false",
+        "app.audit.enabled=false",
+        "app.user-activity.enabled=false",
+        "app.jwt.secret=dGVzdC1vbmx5LXNlY3JldC1mb3ItdGhlLXNxbC1idWRnZXQtdGVzdHM=",
+        "app.mail.from=tests@localhost",
+        "app.introspect.api-key=tests-only"
+})
+@AutoConfigureMockMvc
+class MeEndpointTests {
+
+    @Container
+    @ServiceConnection
+    static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @MockitoBean
+    MailSenderPort mail;
+
+    @Autowired MockMvc mvc;
+    @Autowired UserRepository users;
+    @Autowired PasswordEncoder encoder;
+    @Autowired JWTService jwtService;
+
+    private User user;
+    private String bearer;
+
+    @BeforeEach
+    void user() {
+        String name = "m" + UUID.randomUUID().toString().substring(0, 8);
+        var u = new User();
+        u.setUsername(name);
+        u.setEmail(name + "@test.local");
+        u.setPasswordHash(encoder.encode("secret-1"));
+        u.setEnabled(true);
+        user = users.save(u);
+        bearer = "Bearer " + jwtService.generate(user);
+    }
+
+    @Test
+    void notModifiedWhileTheUserIsUnchanged() throws Exception {
+        String etag = etagOf(user.getVersion());
+        mvc.perform(get("/auth/users/me").header(HttpHeaders.AUTHORIZATION, bearer))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(jsonPath("$.username").value(user.getUsername()));
+
+        mvc.perform(get("/auth/users/me").header(HttpHeaders.AUTHORIZATION, bearer)
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void aPasswordChangeInvalidatesTheEtag() throws Exception {
+        String before = etagOf(user.getVersion());
+        mvc.perform(get("/auth/users/me").header(HttpHeaders.AUTHORIZATION, bearer))
+                .andExpect(header().string(HttpHeaders.ETAG, before));
+
+        mvc.perform(put("/auth/users/me/password").header(HttpHeaders.AUTHORIZATION, bearer)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"currentPassword\":\"secret-1\",\"newPassword\":\"secret-2\"}"))
+                .andExpect(status().isNoContent());
+
+        String after = etagOf(user.getVersion() + 1);
+        assertNotEquals(before, after);
+        mvc.perform(get("/auth/users/me").header(HttpHeaders.AUTHORIZATION, bearer)
+                        .header(HttpHeaders.IF_NONE_MATCH, before))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, after));
+        mvc.perform(get("/auth/users/me").header(HttpHeaders.AUTHORIZATION, bearer)
+                        .header(HttpHeaders.IF_NONE_MATCH, after))
+                .andExpect(status().isNotModified());
+    }
+
+    private String etagOf(long version) {
+        return "\"" + user.getId() + "-" + version + "\"";
+    }
+}
@@ -0,0 +1,137 @@
+package com.site.auth.admin;
+
+import com.site.auth.admin.UserDirectoryService.Query;
+import com.site.auth.mail.MailSenderPort;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Directorio contra Postgres: la paginación keyset recorre todas las filas una sola vez aunque
+ * compartan {@code created_at}, la búsqueda es literal, y los planes usan
+ * {@code ix_users_created_at_id} y los índices trigram. Se salta si no hay Docker.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@SpringBootTest(properties = {
+        "app.warmup.enabled=false",
+        "app.seed.enabled=false",
+        "app.audit.enabled=false",
+        "app.user-activity.enabled=false",
+        "app.jwt.secret=dGVzdC1vbmx5LXNlY3JldC1mb3ItdGhlLXNxbC1idWRnZXQtdGVzdHM=",
+        "app.mail.from=tests@localhost",
+        "app.introspect.api-key=tests-only"
+})
+class UserDirectoryPagingTests {
+
+    private static final int USERS = 5000;
+
+    @Container
+    @ServiceConnection
+    static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @MockitoBean
+    MailSenderPort mail;
+
+    @Autowired UserDirectoryService directory;
+    @Autowired JdbcTemplate jdbc;
+    @Autowired NamedParameterJdbcTemplate named;
+    @Autowired PlatformTransactionManager txManager;
+
+    @BeforeEach
+    void users() {
+        if (jdbc.queryForObject("select count(*) from site_schema.users", Integer.class) > 0) return;
+        // 20 instantes distintos para 5000 usuarios: muchos empates en created_at
+        jdbc.update("""
+                insert into site_schema.users (version, username, email, password_hash, enabled, level, created_at, updated_at)
+                select 0, 'dir-' || g, 'dir-' || g || '@test.local', 'x', g % 3 <> 0, g % 5,
+                       timestamptz '2026-01-01 00:00:00+00' + (g % 20) * interval '1 microsecond', now()
+                from generate_series(1, ?) g""", USERS);
+        jdbc.update("""
+                insert into site_schema.users (version, username, email, password_hash, enabled, level, created_at, updated_at)
+                values (0, 'Odd_Name%', 'odd@test.local', 'x', true, 0, now(), now()),
+                       (0, 'oddXNameY', 'odd2@test.local', 'x', true, 0, now(), now())""");
+        jdbc.execute("analyze site_schema.users");
+    }
+
+    @Test
+    void keysetPagesVisitEveryRowOnceInOrder() {
+        var expected = jdbc.queryForList(
+                "select id from site_schema.users order by created_at desc, id desc", Long.class);
+
+        var seen = new ArrayList<Long>();
+        String cursor = null;
+        do {
+            var page = directory.search(new Query(null, null, null, null, 173, cursor));
+            page.items().forEach(e -> seen.add(e.id()));
+            cursor = page.nextCursor();
+        } while (cursor != null);
+
+        assertEquals(expected, seen);
+        assertEquals(seen.size(), new HashSet<>(seen).size());
+    }
+
+    @Test
+    void filtersApplyAcrossPages() {
+        var expected = jdbc.queryForList("""
+                select id from site_schema.users where enabled and level between 2 and 3
+                order by created_at desc, id desc""", Long.class);
+
+        var seen = new ArrayList<Long>();
+        String cursor = null;
+        do {
+            var page = directory.search(new Query(null, true, 2, 3, 200, cursor));
+            page.items().forEach(e -> seen.add(e.id()));
+            cursor = page.nextCursor();
+        } while (cursor != null);
+        assertEquals(expected, seen);
+    }
+
+    @Test
+    void searchIsLiteralAndCaseInsensitive() {
+        var hits = directory.search(new Query("odd_name%", null, null, null, 10, null)).items();
+        assertEquals(List.of("Odd_Name%"), hits.stream().map(UserDirectoryEntry::username).toList());
+
+        // Sin escape, _ y % casarían también con oddXNameY
+        var both = directory.search(new Query("odd", null, null, null, 10, null)).items();
+        assertEquals(2, both.size());
+    }
+
+    @Test
+    void plansUseTheKeysetAndTrigramIndexes() {
+        var first = directory.search(new Query(null, null, null, null, 50, null));
+        var keyset = explain(new Query(null, null, null, null, 50, first.nextCursor()), "enable_seqscan");
+        assertTrue(keyset.contains("ix_users_created_at_id"), keyset);
+
+        // Con 5000 filas el planner prefiere recorrer el índice ordenado y filtrar; sin index scan
+        // simple queda a la vista si la búsqueda puede resolverse con los trigram (bitmap)
+        var search = explain(new Query("oddxname", null, null, null, 50, null), "enable_seqscan", "enable_indexscan");
+        assertTrue(search.contains("ix_users_username_trgm"), search);
+        assertTrue(search.contains("ix_users_email_trgm"), search);
+    }
+
+    /** Plan de la consulta del servicio con los tipos de scan dados desactivados (la tabla es pequeña). */
+    private String explain(Query query, String... disabled) {
+        var statement = directory.statement(query);
+        return new TransactionTemplate(txManager).execute(tx -> {
+            for (String setting : disabled) jdbc.execute("set local " + setting + " = off");
+            return String.join("\n", named.queryForList("explain " + statement.sql(), statement.params(), String.class));
+        });
+    }
+}
@@ -0,0 +1,197 @@
+package com.site.auth.admin;
+
+import com.site.auth.AuthError;
+import com.site.auth.admin.UserDirectoryService.Cursor;
+import com.site.auth.admin.UserDirectoryService.Query;
+import com.site.auth.user.UserShards;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Cursor keyset (µs, formato y rechazo de basura), escape de LIKE y mezcla por shards: cada shard
+ * devuelve {@code limit + 1} filas y la página sale del orden global, sin saltos ni repetidos
+ * aunque muchas filas compartan {@code created_at}.
+ */
+class UserDirectoryServiceTests {
+
+    private static final Comparator<UserDirectoryEntry> NEWEST_FIRST =
+            Comparator.comparing(UserDirectoryEntry::createdAt).thenComparing(UserDirectoryEntry::id).reversed();
+
+    // ===== cursor =====
+
+    @Test
+    void cursorRoundTripsAtMicrosecondPrecision() {
+        var at = Instant.parse("2026-03-01T10:15:30.123456Z");
+        var c = new Cursor(at, 42L);
+        assertEquals(c, Cursor.decode(c.encode()));
+
+        // Antes de 1970 el redondeo sigue siendo hacia abajo
+        var old = new Cursor(Instant.parse("1969-12-31T23:59:59.999999Z"), (1L << 40) + 7);
+        assertEquals(old, Cursor.decode(old.encode()));
+    }
+
+    @Test
+    void cursorDropsSubMicrosecondDigitsLikePostgres() {
+        var c = new Cursor(Instant.parse("2026-03-01T10:15:30.123456789Z"), 1L);
+        assertEquals(Instant.parse("2026-03-01T10:15:30.123456Z"), Cursor.decode(c.encode()).createdAt());
+    }
+
+    @Test
+    void malformedCursorsAreRejected() {
+        var b64 = Base64.getUrlEncoder().withoutPadding();
+        for (String bad : List.of("", "no es base64!", "AAAA", b64.encodeToString(new byte[15]),
+                b64.encodeToString(new byte[17]), "+/+/+/+/+/+/+/+/+/+/+w")) {
+            assertSame(AuthError.VALIDATION_ERROR, assertThrows(AuthError.class, () -> Cursor.decode(bad)), bad);
+        }
+        // 16 bytes cualesquiera sí son un cursor (el id y la fecha los filtra la consulta)
+        assertNotNull(Cursor.decode(b64.encodeToString(ByteBuffer.allocate(16).putLong(0).putLong(1).array())));
+    }
+
+    // ===== LIKE =====
+
+    @Test
+    void likeWildcardsAreEscaped() {
+        assertEquals("abc", UserDirectoryService.escapeLike("abc"));
+        assertEquals("50\\%", UserDirectoryService.escapeLike("50%"));
+        assertEquals("a\\_b", UserDirectoryService.escapeLike("a_b"));
+        assertEquals("c:\\\\tmp", UserDirectoryService.escapeLike("c:\\tmp"));
+        // La barra se escapa primero: no duplica el escape de % ni de _
+        assertEquals("\\\\\\%\\\\\\_", UserDirectoryService.escapeLike("\\%\\_"));
+    }
+
+    @Test
+    void queryTextIsMatchedLiterallyAndCaseInsensitively() {
+        var statement = service(new FakeShards(List.of())).statement(new Query("Ana_%", null, null, null, 10, null));
+        assertEquals("%ana\\_\\%%", statement.params().getValue("q"));
+    }
+
+    @Test
+    void shortQueriesAndBadLimitsAreRejected() {
+        var service = service(new FakeShards(List.of()));
+        assertThrows(AuthError.class, () -> service.statement(new Query("ab", null, null, null, 10, null)));
+        assertThrows(AuthError.class, () -> service.statement(new Query(null, null, null, null, 0, null)));
+        assertThrows(AuthError.class, () -> service.statement(new Query(null, null, null, null,
+                UserDirectoryService.MAX_LIMIT + 1, null)));
+    }
+
+    // ===== paginación y mezcla =====
+
+    @Test
+    void pagesAcrossTwoShardsWithTiedTimestampsNeitherSkipNorRepeat() {
+        // 3 instantes para 37 usuarios repartidos entre dos shards (ids de rangos distintos)
+        var shard0 = new ArrayList<UserDirectoryEntry>();
+        var shard1 = new ArrayList<UserDirectoryEntry>();
+        for (int i = 0; i < 37; i++) {
+            var at = Instant.parse("2026-01-01T00:00:00Z").plusNanos((i % 3) * 1_000L);
+            if (i % 4 == 0) shard1.add(entry((1L << 40) + i, at));
+            else shard0.add(entry(i + 1, at));
+        }
+        var shards = new FakeShards(List.of(shard0, shard1));
+        var service = service(shards);
+
+        var seen = new ArrayList<UserDirectoryEntry>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            var page = service.search(new Query(null, null, null, null, 5, cursor));
+            assertTrue(page.items().size() <= 5);
+            seen.addAll(page.items());
+            cursor = page.nextCursor();
+            pages++;
+        } while (cursor != null);
+
+        var expected = new ArrayList<UserDirectoryEntry>(shard0);
+        expected.addAll(shard1);
+        expected.sort(NEWEST_FIRST);
+        assertEquals(expected, seen);
+        assertEquals(37, new HashSet<>(seen).size());
+        assertEquals(8, pages);
+        assertTrue(shards.limits.stream().allMatch(l -> l == 6), "cada shard pide limit + 1: " + shards.limits);
+    }
+
+    @Test
+    void lastFullPageHasNoNextCursor() {
+        var rows = new ArrayList<UserDirectoryEntry>();
+        for (int i = 1; i <= 10; i++) rows.add(entry(i, Instant.parse("2026-01-01T00:00:00Z").plusSeconds(i)));
+        var service = service(new FakeShards(List.of(rows)));
+
+        var first = service.search(new Query(null, null, null, null, 5, null));
+        assertNotNull(first.nextCursor());
+        var second = service.search(new Query(null, null, null, null, 5, first.nextCursor()));
+        assertEquals(5, second.items().size());
+        assertNull(second.nextCursor());
+        assertEquals(1L, second.items().get(4).id());
+    }
+
+    // ===== helpers =====
+
+    private static UserDirectoryEntry entry(long id, Instant createdAt) {
+        return new UserDirectoryEntry(id, "u" + id, "u" + id + "@test.local", true, 0, createdAt, null);
+    }
+
+    private static UserDirectoryService service(FakeShards shards) {
+        return new UserDirectoryService(shards.jdbc, shards.shards, mock(PlatformTransactionManager.class), "site_schema");
+    }
+
+    /**
+     * Shards en memoria: la consulta de cada uno aplica el cursor, el orden y el limit que lleva
+     * en los parámetros, como haría Postgres.
+     */
+    private static final class FakeShards {
+        final UserShards shards = mock(UserShards.class);
+        final NamedParameterJdbcTemplate jdbc = mock(NamedParameterJdbcTemplate.class);
+        final List<Integer> limits = new ArrayList<>();
+        private int current;
+
+        @SuppressWarnings("unchecked")
+        FakeShards(List<List<UserDirectoryEntry>> data) {
+            when(shards.count()).thenReturn(Math.max(1, data.size()));
+            when(shards.onShard(anyInt(), any())).thenAnswer(i -> {
+                current = i.getArgument(0);
+                return ((Supplier<?>) i.getArgument(1)).get();
+            });
+            when(jdbc.query(anyString(), any(SqlParameterSource.class), any(RowMapper.class))).thenAnswer(i -> {
+                SqlParameterSource p = i.getArgument(1);
+                int limit = (Integer) p.getValue("limit");
+                limits.add(limit);
+                var rows = data.isEmpty() ? List.<UserDirectoryEntry>of() : data.get(current);
+                return rows.stream()
+                        .filter(e -> !p.hasValue("cursorAt") || before(e, (OffsetDateTime) p.getValue("cursorAt"),
+                                (Long) p.getValue("cursorId")))
+                        .sorted(NEWEST_FIRST)
+                        .limit(limit)
+                        .toList();
+            });
+        }
+
+        private static boolean before(UserDirectoryEntry e, OffsetDateTime at, long id) {
+            int c = e.createdAt().compareTo(at.toInstant());
+            return c < 0 || (c == 0 && e.id() < id);
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.site.auth.password;
+
+import com.site.auth.AuthError;
+import com.site.metrics.AuthMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Búsqueda en el fichero mapeado (interpolación + binaria) con trozos pequeños para cruzar sus
+ * límites, formato con cabecera y recarga en marcha al sustituir el fichero.
+ */
+class BreachedPasswordCheckerTests {
+
+    @TempDir
+    Path dir;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void emptyFileContainsNothing() throws IOException {
+        Path file = write("empty.bin", 20, List.of());
+        var f = map(file, Integer.MAX_VALUE);
+        assertEquals(0, f.records);
+        assertFalse(f.contains(new byte[20]));
+        assertFalse(f.contains(filled(20, 0xff)));
+    }
+
+    @Test
+    void findsFirstAndLastAndRejectsKeysOutsideOrBetween() throws IOException {
+        var records = List.of(key(20, 0x10), key(20, 0x20), key(20, 0x30));
+        var f = map(write("three.bin", 20, records), Integer.MAX_VALUE);
+
+        assertTrue(f.contains(records.get(0)), "primero");
+        assertTrue(f.contains(records.get(1)));
+        assertTrue(f.contains(records.get(2)), "último");
+        assertFalse(f.contains(new byte[20]), "por debajo del primero");
+        assertFalse(f.contains(key(20, 0x18)), "entre dos registros");
+        assertFalse(f.contains(filled(20, 0xff)), "por encima del último");
+    }
+
+    @Test
+    void randomKeysAcrossChunkBoundaries() throws IOException {
+        for (int recordBytes : new int[]{8, 10, 20}) {
+            var rnd = new Random(recordBytes);
+            var stored = new TreeSet<byte[]>(Arrays::compareUnsigned);
+            while (stored.size() < 500) stored.add(random(rnd, recordBytes));
+            // Trozos de 7 registros: ~70 límites de trozo en el fichero
+            var f = map(write("r" + recordBytes + ".bin", recordBytes, List.copyOf(stored)), 7 * recordBytes);
+            assertEquals(500, f.records);
+
+            int i = 0;
+            for (byte[] k : stored) {
+                assertTrue(f.contains(k), "registro " + i + " (" + recordBytes + " bytes)");
+                i++;
+            }
+            for (int n = 0; n < 2000; n++) {
+                byte[] k = random(rnd, recordBytes);
+                assertEquals(stored.contains(k), f.contains(k), HexFormat.of().formatHex(k));
+            }
+        }
+    }
+
+    @Test
+    void recordsSharingTheFirstEightBytesFallBackToBinarySearch() throws IOException {
+        // Mismo prefijo de 8 bytes: la interpolación no distingue y decide la binaria sobre el resto
+        var records = new ArrayList<byte[]>();
+        for (int i = 0; i < 40; i += 2) {
+            byte[] k = key(20, 0x42);
+            k[19] = (byte) i;
+            records.add(k);
+        }
+        var f = map(write("same-prefix.bin", 20, records), 3 * 20);
+        for (var k : records) assertTrue(f.contains(k));
+        byte[] between = key(20, 0x42);
+        between[19] = 7;
+        assertFalse(f.contains(between));
+    }
+
+    @Test
+    void fileWithoutHeaderOrWithBadSizeIsRejected() throws IOException {
+        // Formato sin cabecera: solo registros de 20 bytes
+        Path raw = dir.resolve("raw.bin");
+        Files.write(raw, BreachedPasswordChecker.sha1("oscar"));
+        var e = assertThrows(IllegalStateException.class, () -> map(raw, Integer.MAX_VALUE));
+        assertTrue(e.getMessage().contains("cabecera"), e.getMessage());
+
+        Path truncated = write("truncated.bin", 10, List.of(key(10, 1), key(10, 2)));
+        Files.write(truncated, Arrays.copyOf(Files.readAllBytes(truncated), (int) Files.size(truncated) - 3));
+        assertThrows(IllegalStateException.class, () -> map(truncated, Integer.MAX_VALUE));
+    }
+
+    @Test
+    void recordWidthComesFromTheFile() throws IOException {
+        // Generado con 10 bytes por registro: el checker no necesita saberlo de antemano
+        Path file = build("ten.bin", 10, "oscar", "hunter2");
+        var checker = checker(file);
+        assertTrue(checker.isBreached("oscar"));
+        assertTrue(checker.isBreached("hunter2"));
+        assertFalse(checker.isBreached("correct horse battery staple"));
+        assertThrows(AuthError.class, () -> checker.requireNotBreached("hunter2"));
+        checker.requireNotBreached("correct horse battery staple");
+    }
+
+    @Test
+    void replacingTheFileIsPickedUpByReload() throws IOException {
+        Path file = build("live.bin", 20, "oscar");
+        var checker = checker(file);
+        assertTrue(checker.isBreached("oscar"));
+        assertFalse(checker.isBreached("hunter2"));
+        assertEquals(1.0, records());
+
+        // Sustitución atómica, como con mv; otra fecha por si el tamaño coincide
+        Path next = build("next.bin", 20, "hunter2", "letmein");
+        Files.setLastModifiedTime(next, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 5_000));
+        Files.move(next, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        checker.reload();
+
+        assertFalse(checker.isBreached("oscar"));
+        assertTrue(checker.isBreached("hunter2"));
+        assertEquals(2.0, records());
+
+        // Un reemplazo inválido no tira la versión en uso
+        Path broken = dir.resolve("broken.bin");
+        Files.write(broken, new byte[]{1, 2, 3});
+        Files.move(broken, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        checker.reload();
+        assertTrue(checker.isBreached("hunter2"));
+        assertEquals(2.0, records());
+    }
+
+    @Test
+    void noFileConfiguredRejectsNothing() {
+        var checker = new BreachedPasswordChecker(new AuthMetrics(registry), registry, "");
+        assertFalse(checker.isBreached("oscar"));
+        checker.requireNotBreached("oscar");
+        assertEquals(0.0, records());
+    }
+
+    @Test
+    void headerRejectsOutOfRangeWidths() {
+        assertThrows(IllegalArgumentException.class, () -> BreachedPasswordChecker.header(7));
+        assertThrows(IllegalArgumentException.class, () -> BreachedPasswordChecker.header(21));
+        assertEquals(BreachedPasswordChecker.HEADER_BYTES, BreachedPasswordChecker.header(20).length);
+    }
+
+    // ===== helpers =====
+
+    private BreachedPasswordChecker checker(Path file) {
+        return new BreachedPasswordChecker(new AuthMetrics(registry), registry, file.toString());
+    }
+
+    private double records() {
+        return registry.get("auth.password.breached.records").gauge().value();
+    }
+
+    /** Fichero con cabecera y los registros dados, ya ordenados. */
+    private Path write(String name, int recordBytes, List<byte[]> sorted) throws IOException {
+        var out = new ByteArrayOutputStream();
+        out.write(BreachedPasswordChecker.header(recordBytes));
+        for (var r : sorted) out.write(r);
+        Path file = dir.resolve(name);
+        Files.write(file, out.toByteArray());
+        return file;
+    }
+
+    /** Como en producción: lista HIBP de las contraseñas dadas, pasada por el builder. */
+    private Path build(String name, int recordBytes, String... passwords) throws IOException {
+        var hex = HexFormat.of().withUpperCase();
+        var lines = new TreeSet<String>();
+        for (String p : passwords) lines.add(hex.formatHex(BreachedPasswordChecker.sha1(p)) + ":3");
+        Path in = dir.resolve(name + ".txt");
+        Files.write(in, lines);
+        Path out = dir.resolve(name);
+        assertEquals(passwords.length, BreachedPasswordFileBuilder.build(in, out, recordBytes, 1));
+        return out;
+    }
+
+    private static BreachedPasswordChecker.HashFile map(Path file, int maxChunkBytes) throws IOException {
+        return BreachedPasswordChecker.HashFile.map(file, Files.size(file), 0, maxChunkBytes);
+    }
+
+    /** Clave cuyo primer byte es {@code first} y el resto ceros. */
+    private static byte[] key(int recordBytes, int first) {
+        byte[] k = new byte[recordBytes];
+        k[0] = (byte) first;
+        return k;
+    }
+
+    private static byte[] filled(int recordBytes, int value) {
+        byte[] k = new byte[recordBytes];
+        Arrays.fill(k, (byte) value);
+        return k;
+    }
+
+    private static byte[] random(Random rnd, int recordBytes) {
+        byte[] k = new byte[recordBytes];
+        rnd.nextBytes(k);
+        return k;
+    }
+}
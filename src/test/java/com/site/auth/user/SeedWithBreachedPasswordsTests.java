@@ -0,0 +1,73 @@
+package com.site.auth.user;
+
+import com.site.auth.mail.MailSenderPort;
+import com.site.auth.password.BreachedPasswordChecker;
+import com.site.auth.password.BreachedPasswordFileBuilder;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Arranque con BD vacía y lista de contraseñas filtradas que incluye la de la seed: la seed
+ * se crea igualmente (no pasa por el filtro) y el filtro sigue activo para el resto.
+ * Se salta si no hay Docker.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@SpringBootTest(properties = {
+        "app.warmup.enabled=false",
+        "app.seed.enabled=true",
+        "app.audit.enabled=false",
+        "app.user-activity.enabled=false",
+        "app.jwt.secret=dGVzdC1vbmx5LXNlY3JldC1mb3ItdGhlLXNxbC1idWRnZXQtdGVzdHM=",
+        "app.mail.from=tests@localhost",
+        "app.introspect.api-key=tests-only"
+})
+class SeedWithBreachedPasswordsTests {
+
+    @Container
+    @ServiceConnection
+    static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @MockitoBean
+    MailSenderPort mail;
+
+    @Autowired UserService users;
+    @Autowired BreachedPasswordChecker breached;
+
+    @DynamicPropertySource
+    static void breachedFile(DynamicPropertyRegistry registry) throws IOException, NoSuchAlgorithmException {
+        // Un único registro de 20 bytes: el SHA-1 completo de la contraseña de la seed
+        Path hibp = Files.createTempFile("breached", ".txt");
+        Path file = hibp.resolveSibling(hibp.getFileName() + ".bin");
+        hibp.toFile().deleteOnExit();
+        file.toFile().deleteOnExit();
+        byte[] sha1 = MessageDigest.getInstance("SHA-1").digest("oscar".getBytes(StandardCharsets.UTF_8));
+        Files.writeString(hibp, HexFormat.of().withUpperCase().formatHex(sha1) + ":1\n");
+        BreachedPasswordFileBuilder.main(new String[]{hibp.toString(), file.toString()});
+        registry.add("app.breached-passwords.file", file::toString);
+    }
+
+    @Test
+    void seedIsCreatedDespiteBeingInTheBreachedList() {
+        assertTrue(breached.isBreached("oscar"), "el fichero de filtradas debería estar cargado");
+        var seed = users.findByUsernameOrEmail("oscar").orElseThrow();
+        assertTrue(seed.isEnabled());
+    }
+}
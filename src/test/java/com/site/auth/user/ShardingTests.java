@@ -0,0 +1,313 @@
+package com.site.auth.user;
+
+import com.site.auth.mail.MailSenderPort;
+import com.site.auth.password.PasswordResetToken;
+import com.site.auth.password.PasswordResetTokenRepository;
+import com.site.datasource.MigrationConfig;
+import com.site.datasource.ShardDataSources;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Sharding con dos bases (dos databases en el mismo Postgres): alta, verificación, login y
+ * reset con usuarios en cada shard, reservas de alta caducadas y rebalanceo repetible.
+ * Se salta si no hay Docker.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@SpringBootTest(properties = {
+        "app.warmup.enabled=false",
+        "app.seed.enabled=false",
+        "app.audit.enabled=false",
+        "app.user-activity.enabled=false",
+        "app.jwt.secret=dGVzdC1vbmx5LXNlY3JldC1mb3ItdGhlLXNxbC1idWRnZXQtdGVzdHM=",
+        "app.mail.from=tests@localhost",
+        "app.introspect.api-key=tests-only",
+        "app.sharding.enabled=true",
+        "app.sharding.pool-size=4",
+        "app.sharding.reservation-timeout=1m"
+})
+@AutoConfigureMockMvc
+class ShardingTests {
+
+    private static final Pattern TOKEN = Pattern.compile("token=([A-Za-z0-9._-]+)");
+    private static final Pattern ID = Pattern.compile("\"id\":(\\d+)");
+
+    @Container
+    static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine")
+            .withDatabaseName("shard0");
+
+    @DynamicPropertySource
+    static void shards(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("app.sharding.shards[0].name", () -> "shard1");
+        registry.add("app.sharding.shards[0].url", ShardingTests::createSecondDatabase);
+        registry.add("app.sharding.shards[0].username", postgres::getUsername);
+        registry.add("app.sharding.shards[0].password", postgres::getPassword);
+    }
+
+    private static String createSecondDatabase() {
+        try (var c = DriverManager.getConnection(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword());
+             var s = c.createStatement()) {
+            s.execute("create database shard1");
+        } catch (SQLException e) {
+            if (!"42P04".equals(e.getSQLState())) throw new IllegalStateException(e); // ya existe
+        }
+        return postgres.getJdbcUrl().replace("/shard0", "/shard1");
+    }
+
+    @MockitoBean
+    MailSenderPort mail;
+
+    @Autowired MockMvc mvc;
+    @Autowired UserShards shards;
+    @Autowired UserService userService;
+    @Autowired UserRepository users;
+    @Autowired PasswordResetTokenRepository resetTokens;
+    @Autowired ShardRebalancer rebalancer;
+    @Autowired ShardDataSources dataSources;
+    @Autowired PasswordEncoder encoder;
+
+    private String prefix;
+
+    @BeforeEach
+    void uniquePrefix() {
+        prefix = "s" + UUID.randomUUID().toString().substring(0, 6) + "-";
+    }
+
+    @Test
+    void registerVerifyAndLoginOnEachShard() throws Exception {
+        for (int shard = 0; shard < 2; shard++) {
+            String name = nameOn(shard);
+            long id = idOf(register(name, "secret-1").andExpect(status().isOk()));
+            assertEquals(shard, id >>> MigrationConfig.SHARD_ID_BITS, "rango de ids del shard");
+            assertEquals(shard, shards.shardOf(id));
+
+            // El token de verificación lleva el shard delante
+            String token = verificationToken(name + "@test.local");
+            assertTrue(token.startsWith(shard + "."), token);
+            mvc.perform(get("/auth/verify-email").param("token", token)).andExpect(status().isFound());
+
+            login(name, "secret-1").andExpect(status().isOk());
+            login(name + "@test.local", "secret-1").andExpect(status().isOk());
+        }
+    }
+
+    @Test
+    void usernameAndEmailAreUniqueAcrossShards() throws Exception {
+        String first = nameOn(0);
+        register(first, "secret-1").andExpect(status().isOk());
+
+        // Mismo nombre con otras mayúsculas y mismo email con otro nombre (que iría al otro shard)
+        register(first.toUpperCase(), "secret-1", nameOn(1) + "@test.local").andExpect(status().isBadRequest());
+        register(nameOn(1), "secret-1", first + "@test.local").andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void resetPasswordOnEachShard() throws Exception {
+        for (int shard = 0; shard < 2; shard++) {
+            String name = nameOn(shard);
+            var user = verifiedUser(name);
+            String plain = shard + ".reset-" + name;
+            shards.onUser(user.getId(), () -> {
+                var t = new PasswordResetToken();
+                t.setUser(user);
+                t.setTokenHash(sha256(plain));
+                t.setExpiresAt(Instant.now().plusSeconds(1800));
+                return resetTokens.save(t);
+            });
+
+            // Con el prefijo de otro shard no se encuentra
+            String wrong = (1 - shard) + ".reset-" + name;
+            mvc.perform(post("/auth/reset-password").contentType(MediaType.APPLICATION_JSON)
+                    .content(json("token", wrong, "newPassword", "secret-2"))).andExpect(status().isBadRequest());
+
+            mvc.perform(post("/auth/reset-password").contentType(MediaType.APPLICATION_JSON)
+                    .content(json("token", plain, "newPassword", "secret-2"))).andExpect(status().isNoContent());
+            login(name, "secret-1").andExpect(status().isUnauthorized());
+            login(name, "secret-2").andExpect(status().isOk());
+        }
+    }
+
+    @Test
+    void staleReservationIsReleasedByTheNextRegistration() throws Exception {
+        String name = nameOn(1);
+        directory().update("insert into site_schema.user_directory (username, email, shard, reserved_at)"
+                + " values (?, ?, 1, now() - interval '1 hour')", name, name + "@test.local");
+
+        register(name, "secret-1").andExpect(status().isOk());
+        assertEquals(1, countUsers(1, name));
+    }
+
+    @Test
+    void syncCompletesAReservationWhoseUserWasCreated() throws Exception {
+        String name = nameOn(1);
+        long id = idOf(register(name, "secret-1").andExpect(status().isOk()));
+        // Como si el assign tras el commit hubiera fallado
+        directory().update("update site_schema.user_directory set user_id = null, reserved_at = now() - interval '1 hour'"
+                + " where username = ?", name);
+
+        var report = rebalancer.syncDirectory(100);
+        assertTrue(report.reclaimed() >= 1, report.toString());
+        assertEquals(id, directory().queryForObject(
+                "select user_id from site_schema.user_directory where username = ?", Long.class, name));
+    }
+
+    @Test
+    void reclaimMatchesTheUserWithTheRegistrationNormalization() throws Exception {
+        // Mayúsculas y un espacio que strip quita y trim de Postgres no: la reserva es el nombre normalizado
+        String name = nameOn(1);
+        String raw = " " + name.toUpperCase(Locale.ROOT) + "\u2003";
+        var user = userService.register(raw, name + "@test.local", "secret-1");
+        directory().update("update site_schema.user_directory set user_id = null, reserved_at = now() - interval '1 hour'"
+                + " where username = ?", name);
+
+        // Solo el reclaim: sync volvería a dar de alta al usuario aunque la reserva se hubiera borrado
+        assertTrue(shards.reclaimStaleReservations(100) >= 1);
+        assertEquals(user.getId(), directory().queryForObject(
+                "select user_id from site_schema.user_directory where username = ?", Long.class, name));
+    }
+
+    @Test
+    void rebalanceMovesMisplacedUsersOnceAndIsRepeatable() throws Exception {
+        // Usuario en el shard que no le toca (p. ej. creado antes del sharding) y dado de alta en el directorio
+        String name = nameOn(1);
+        var misplaced = shards.onShard(0, () -> users.save(newUser(name)));
+        rebalancer.syncDirectory(100);
+        assertEquals(0, shards.shardOf(misplaced.getId()));
+
+        var first = rebalancer.rebalance(100, 1000);
+        assertTrue(first.moved() >= 1, first.toString());
+        assertEquals(1, directory().queryForObject(
+                "select shard from site_schema.user_directory where user_id = ?", Integer.class, misplaced.getId()));
+        assertEquals(0, countUsers(0, name));
+        assertEquals(1, countUsers(1, name));
+        login(name, "secret-1").andExpect(status().isOk());
+
+        var second = rebalancer.rebalance(100, 1000);
+        assertEquals(0, second.moved(), second.toString());
+        assertEquals(0, second.cleanedUp(), second.toString());
+        login(name, "secret-1").andExpect(status().isOk());
+    }
+
+    // ===== helpers =====
+
+    /** Un nombre nuevo que el hash coloca en {@code shard}. */
+    private String nameOn(int shard) {
+        for (int i = 0; ; i++) {
+            String name = prefix + i;
+            if (shards.placement(UserShards.normalize(name)) == shard && !taken(name)) return name;
+        }
+    }
+
+    private boolean taken(String name) {
+        return Boolean.TRUE.equals(directory().queryForObject(
+                "select exists(select 1 from site_schema.user_directory where username = ?)", Boolean.class, name));
+    }
+
+    private User verifiedUser(String name) {
+        var u = userService.register(name, name + "@test.local", "secret-1");
+        userService.markVerified(u.getId());
+        return u;
+    }
+
+    private User newUser(String name) {
+        var u = new User();
+        u.setUsername(name);
+        u.setEmail(name + "@test.local");
+        u.setPasswordHash(encoder.encode("secret-1"));
+        u.setEnabled(true);
+        return u;
+    }
+
+    private ResultActions register(String name, String password) throws Exception {
+        return register(name, password, name + "@test.local");
+    }
+
+    private ResultActions register(String name, String password, String email) throws Exception {
+        return mvc.perform(post("/auth/register").contentType(MediaType.APPLICATION_JSON)
+                .content(json("username", name, "email", email, "password", password)));
+    }
+
+    private static long idOf(ResultActions registered) throws Exception {
+        String body = registered.andReturn().getResponse().getContentAsString();
+        var m = ID.matcher(body);
+        assertTrue(m.find(), body);
+        return Long.parseLong(m.group(1));
+    }
+
+    private ResultActions login(String usernameOrEmail, String password) throws Exception {
+        return mvc.perform(post("/auth/login").contentType(MediaType.APPLICATION_JSON)
+                .content(json("usernameOrEmail", usernameOrEmail, "password", password)));
+    }
+
+    private String verificationToken(String email) {
+        var html = ArgumentCaptor.forClass(String.class);
+        verify(mail).send(eq(email), any(), html.capture());
+        var m = TOKEN.matcher(html.getValue());
+        assertTrue(m.find(), html.getValue());
+        return m.group(1);
+    }
+
+    private JdbcTemplate directory() {
+        return new JdbcTemplate(dataSources.get(0));
+    }
+
+    private int countUsers(int shard, String name) {
+        return new JdbcTemplate(dataSources.get(shard)).queryForObject(
+                "select count(*) from site_schema.users where username = ?", Integer.class, name);
+    }
+
+    private static String json(String... kv) {
+        var sb = new StringBuilder("{");
+        for (int i = 0; i < kv.length; i += 2) {
+            if (i > 0) sb.append(',');
+            sb.append('"').append(kv[i]).append("\":\"").append(kv[i + 1]).append('"');
+        }
+        return sb.append('}').toString();
+    }
+
+    private static String sha256(String s) {
+        try {
+            byte[] d = MessageDigest.getInstance("SHA-256").digest(s.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(d);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
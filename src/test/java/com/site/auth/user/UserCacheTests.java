@@ -0,0 +1,161 @@
+package com.site.auth.user;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Cargas únicas por id y por email, y orden entre una carga y el evict de un commit: una carga
+ * que leyó la fila de antes del commit no puede quedarse en la caché.
+ */
+class UserCacheTests {
+
+    private static final String EMAIL = "ana@test.local";
+
+    /** La "fila" en la BD que leen los loaders. */
+    private final AtomicReference<UserSnapshot> row = new AtomicReference<>(snapshot(0, false));
+
+    @Test
+    void concurrentEmailMissesLoadOnce() throws Exception {
+        var cache = new UserCache(100, 300);
+        var idLoads = new AtomicInteger();
+        var snapshotLoads = new AtomicInteger();
+        var release = new CountDownLatch(1);
+        Function<String, Long> idLoader = e -> {
+            idLoads.incrementAndGet();
+            await(release);
+            return 1L;
+        };
+        Function<Long, UserSnapshot> loader = id -> {
+            snapshotLoads.incrementAndGet();
+            return row.get();
+        };
+
+        var results = new ArrayList<AtomicReference<UserSnapshot>>();
+        var threads = new ArrayList<Thread>();
+        for (int i = 0; i < 8; i++) {
+            var result = new AtomicReference<UserSnapshot>();
+            results.add(result);
+            String email = i % 2 == 0 ? EMAIL : EMAIL.toUpperCase(); // misma clave sin distinguir mayúsculas
+            threads.add(startDaemon(() -> result.set(cache.getByEmail(email, idLoader, loader))));
+        }
+        Thread.sleep(100); // que los demás lleguen a esperar la carga en curso
+        release.countDown();
+        for (var t : threads) t.join();
+
+        assertEquals(1, idLoads.get());
+        assertEquals(1, snapshotLoads.get());
+        for (var r : results) assertSame(results.get(0).get(), r.get());
+        assertSame(results.get(0).get(), cache.get(1L, id -> null), "get por id reutiliza lo cargado por email");
+    }
+
+    @Test
+    void unknownEmailIsNotCached() {
+        var cache = new UserCache(100, 300);
+        var idLoads = new AtomicInteger();
+        Function<String, Long> idLoader = e -> {
+            idLoads.incrementAndGet();
+            return null;
+        };
+
+        assertNull(cache.getByEmail(EMAIL, idLoader, id -> row.get()));
+        assertNull(cache.getByEmail(EMAIL, idLoader, id -> row.get()));
+        assertEquals(2, idLoads.get());
+    }
+
+    @Test
+    void evictAfterCommitDiscardsALoadThatReadTheOldRow() throws Exception {
+        var cache = new UserCache(100, 300);
+        assertCommitDiscardsConcurrentLoad(cache, loader -> cache.get(1L, loader));
+    }
+
+    @Test
+    void evictAfterCommitDiscardsAnEmailLoadThatReadTheOldRow() throws Exception {
+        var cache = new UserCache(100, 300);
+        assertCommitDiscardsConcurrentLoad(cache, loader -> cache.getByEmail(EMAIL, e -> 1L, loader));
+    }
+
+    /**
+     * Escritura: evict en la transacción, luego una carga que lee la fila aún sin commit y tarda;
+     * el commit cambia la fila y su afterCompletion llega mientras la carga sigue en curso.
+     */
+    private void assertCommitDiscardsConcurrentLoad(UserCache cache,
+                                                    Function<Function<Long, UserSnapshot>, UserSnapshot> read)
+            throws Exception {
+        var user = new User();
+        user.setId(1L);
+        user.setEmail(EMAIL);
+
+        List<TransactionSynchronization> commit = new ArrayList<>();
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cache.evict(user);
+            commit.addAll(TransactionSynchronizationManager.getSynchronizations());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        var loading = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var reader = startDaemon(() -> read.apply(id -> {
+            var old = row.get();
+            loading.countDown();
+            await(release);
+            return old;
+        }));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+        row.set(snapshot(1, true));
+        var afterCommit = startDaemon(() -> commit.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_COMMITTED)));
+        afterCommit.join(200);
+        assertTrue(afterCommit.isAlive(), "el evict espera a la carga en curso");
+
+        release.countDown();
+        reader.join();
+        afterCommit.join();
+
+        var loads = new AtomicInteger();
+        var current = read.apply(id -> {
+            loads.incrementAndGet();
+            return row.get();
+        });
+        assertEquals(1, loads.get(), "la carga vieja no debe quedar en la caché");
+        assertEquals(1, current.version());
+        assertTrue(current.enabled());
+    }
+
+    // ===== helpers =====
+
+    private static UserSnapshot snapshot(long version, boolean enabled) {
+        return new UserSnapshot(1L, version, "ana", EMAIL, enabled, 0, Instant.EPOCH);
+    }
+
+    private static Thread startDaemon(Runnable body) {
+        var t = new Thread(body);
+        t.setDaemon(true);
+        t.start();
+        return t;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
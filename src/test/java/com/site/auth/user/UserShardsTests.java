@@ -0,0 +1,65 @@
+package com.site.auth.user;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Hash de colocación y prefijo de los tokens. Los valores fijos no pueden cambiar: el shard de
+ * cada usuario ya registrado depende de ellos.
+ */
+class UserShardsTests {
+
+    @Test
+    void hash64IsStable() {
+        assertEquals(0xf52a15e9a9b5e89bL, UserShards.hash64(""));
+        assertEquals(0x02c0bdbf481420f8L, UserShards.hash64("a"));
+        assertEquals(0x758953812d03562fL, UserShards.hash64("oscar"));
+        assertEquals(0xfbb10d2851dc0a7aL, UserShards.hash64("ñandú")); // bytes UTF-8, no chars
+        assertEquals(0xe18fe4a6df009c93L, UserShards.hash64("user-0001"));
+    }
+
+    @Test
+    void jumpHashMatchesReferenceVectors() {
+        // Vectores de la implementación de referencia (Lamping y Veach)
+        assertEquals(0, UserShards.jumpHash(1, 1));
+        assertEquals(43, UserShards.jumpHash(42, 57));
+        assertEquals(0, UserShards.jumpHash(0xDEAD10CCL, 1));
+        assertEquals(361, UserShards.jumpHash(0xDEAD10CCL, 666));
+        assertEquals(520, UserShards.jumpHash(256, 1024));
+    }
+
+    @Test
+    void placementIsStable() {
+        assertEquals(0, UserShards.jumpHash(UserShards.hash64("oscar"), 2));
+        assertEquals(1, UserShards.jumpHash(UserShards.hash64("alice"), 2));
+        assertEquals(2, UserShards.jumpHash(UserShards.hash64("alice"), 3));
+        assertEquals(1, UserShards.jumpHash(UserShards.hash64("carol"), 3));
+    }
+
+    @Test
+    void addingAShardOnlyMovesKeysToTheNewOne() {
+        for (int n = 1; n < 16; n++) {
+            for (int i = 0; i < 2_000; i++) {
+                long key = UserShards.hash64("user-" + i);
+                int before = UserShards.jumpHash(key, n);
+                int after = UserShards.jumpHash(key, n + 1);
+                assertTrue(after == before || after == n, "clave " + i + ": " + before + " -> " + after);
+            }
+        }
+    }
+
+    @Test
+    void tokenShardFromPrefix() {
+        assertEquals(0, UserShards.tokenShard("abcDEF_123", 3));   // sin prefijo: shard 0
+        assertEquals(0, UserShards.tokenShard("0.abcDEF_123", 3));
+        assertEquals(2, UserShards.tokenShard("2.abcDEF_123", 3));
+        assertEquals(2, UserShards.tokenShard("2.abc.def", 3));    // solo cuenta el primer punto
+        assertEquals(-1, UserShards.tokenShard("3.abcDEF_123", 3)); // fuera de rango
+        assertEquals(-1, UserShards.tokenShard("-1.abcDEF_123", 3));
+        assertEquals(-1, UserShards.tokenShard("x.abcDEF_123", 3));
+        assertEquals(-1, UserShards.tokenShard(".abcDEF_123", 3));
+        assertEquals(-1, UserShards.tokenShard("99999999999.abc", 3));
+    }
+}
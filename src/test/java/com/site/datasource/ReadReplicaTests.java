@@ -0,0 +1,143 @@
+package com.site.datasource;
+
+import com.site.auth.mail.MailSenderPort;
+import com.site.auth.user.UserService;
+import com.site.security.JWTService;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Réplicas de lectura con una "réplica" congelada (otra database que no recibe las escrituras):
+ * las lecturas readOnly van a ella, pero lo que se carga en la caché de usuarios sale del
+ * primario, así que tras una escritura GET /auth/users/me no repone la fila vieja ni su ETag.
+ * Se salta si no hay Docker.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@SpringBootTest(properties = {
+        "app.warmup.enabled=false",
+        "app.seed.enabled=false",
+        "app.audit.enabled=false",
+        "app.user-activity.enabled=false",
+        "app.jwt.secret=dGVzdC1vbmx5LXNlY3JldC1mb3ItdGhlLXNxbC1idWRnZXQtdGVzdHM=",
+        "app.mail.from=tests@localhost",
+        "app.introspect.api-key=tests-only",
+        "app.datasource.read-replicas.enabled=true",
+        "app.datasource.read-replicas.pool-size=2"
+})
+@AutoConfigureMockMvc
+class ReadReplicaTests {
+
+    @Container
+    static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine")
+            .withDatabaseName("primary_db");
+
+    @DynamicPropertySource
+    static void replica(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("app.datasource.read-replicas.replicas[0].name", () -> "frozen");
+        registry.add("app.datasource.read-replicas.replicas[0].url", ReadReplicaTests::createReplicaDatabase);
+        registry.add("app.datasource.read-replicas.replicas[0].username", postgres::getUsername);
+        registry.add("app.datasource.read-replicas.replicas[0].password", postgres::getPassword);
+    }
+
+    private static String createReplicaDatabase() {
+        try (var c = DriverManager.getConnection(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword());
+             var s = c.createStatement()) {
+            s.execute("create database replica_db");
+        } catch (SQLException e) {
+            if (!"42P04".equals(e.getSQLState())) throw new IllegalStateException(e); // ya existe
+        }
+        return replicaUrl();
+    }
+
+    private static String replicaUrl() {
+        return postgres.getJdbcUrl().replace("/primary_db", "/replica_db");
+    }
+
+    @MockitoBean
+    MailSenderPort mail;
+
+    @Autowired MockMvc mvc;
+    @Autowired UserService userService;
+    @Autowired JWTService jwtService;
+    @Autowired Flyway flyway;
+
+    private JdbcTemplate replica;
+
+    @BeforeEach
+    void migrateReplica() {
+        var ds = new DriverManagerDataSource(replicaUrl(), postgres.getUsername(), postgres.getPassword());
+        Flyway.configure(flyway.getConfiguration().getClassLoader())
+                .configuration(flyway.getConfiguration())
+                .dataSource(ds)
+                .load()
+                .migrate();
+        replica = new JdbcTemplate(ds);
+    }
+
+    @Test
+    void profileReloadAfterAWriteReadsThePrimaryNotTheLaggingReplica() throws Exception {
+        String name = "r" + UUID.randomUUID().toString().substring(0, 8);
+        var user = userService.register(name, name + "@test.local", "secret-1");
+        copyToReplica(user.getId()); // la réplica se queda con la fila sin verificar (version 0)
+
+        // Las lecturas readOnly sí van a la réplica
+        assertFalse(userService.findByUsernameOrEmail(name).orElseThrow().isEnabled());
+
+        String jwt = jwtService.generate(user);
+        String before = "\"" + user.getId() + "-" + user.getVersion() + "\"";
+        mvc.perform(get("/auth/users/me").header(HttpHeaders.AUTHORIZATION, "Bearer " + jwt))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, before));
+
+        userService.markVerified(user.getId()); // escribe en el primario e invalida la caché
+
+        String after = "\"" + user.getId() + "-" + (user.getVersion() + 1) + "\"";
+        mvc.perform(get("/auth/users/me").header(HttpHeaders.AUTHORIZATION, "Bearer " + jwt)
+                        .header(HttpHeaders.IF_NONE_MATCH, before))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, after))
+                .andExpect(jsonPath("$.enabled").value(true));
+
+        assertEquals(Boolean.FALSE, replica.queryForObject(
+                "select enabled from site_schema.users where id = ?", Boolean.class, user.getId()));
+    }
+
+    private void copyToReplica(long id) {
+        var primary = new JdbcTemplate(new DriverManagerDataSource(
+                postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword()));
+        var row = primary.queryForMap("select * from site_schema.users where id = ?", id);
+        replica.update("""
+                insert into site_schema.users (id, version, username, email, password_hash, enabled, created_at, updated_at, level)
+                values (?, ?, ?, ?, ?, ?, ?, ?, ?)""",
+                row.get("id"), row.get("version"), row.get("username"), row.get("email"), row.get("password_hash"),
+                row.get("enabled"), row.get("created_at"), row.get("updated_at"), row.get("level"));
+    }
+}
@@ -0,0 +1,137 @@
+package com.site.datasource;
+
+import com.site.datasource.ReplicaRoutingDataSource.Replica;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/** Routing por el flag readOnly, round-robin, y salida/vuelta de rotación por caída o retraso. */
+class ReplicaRoutingDataSourceTests {
+
+    private final Connection primaryConnection = mock(Connection.class);
+    private final DataSource primary = dataSource(primaryConnection);
+
+    @AfterEach
+    void clearReadOnly() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+
+    @Test
+    void writesGoToThePrimary() throws Exception {
+        var replica = mock(DataSource.class);
+        var routing = routing(new Replica("r1", replica));
+
+        assertSame(primaryConnection, routing.getConnection());
+        verify(replica, never()).getConnection();
+    }
+
+    @Test
+    void readOnlyTransactionsAlternateBetweenReplicas() throws Exception {
+        var c1 = mock(Connection.class);
+        var c2 = mock(Connection.class);
+        var routing = routing(new Replica("r1", dataSource(c1)), new Replica("r2", dataSource(c2)));
+        readOnly();
+
+        var first = routing.getConnection();
+        var second = routing.getConnection();
+        assertTrue(first != second && List.of(c1, c2).contains(first) && List.of(c1, c2).contains(second));
+        assertSame(first, routing.getConnection());
+    }
+
+    @Test
+    void replicaThatCannotConnectLeavesRotationAndThePrimaryServes() throws Exception {
+        var down = mock(DataSource.class);
+        when(down.getConnection()).thenThrow(new SQLException("Connection refused"));
+        var replica = new Replica("r1", down);
+        var routing = routing(replica);
+        readOnly();
+
+        assertSame(primaryConnection, routing.getConnection());
+        assertFalse(replica.healthy());
+
+        // Fuera de rotación: las siguientes lecturas ya no la intentan
+        assertSame(primaryConnection, routing.getConnection());
+        verify(down, times(1)).getConnection();
+    }
+
+    @Test
+    void laggingReplicaLeavesRotationUntilItCatchesUp() throws Exception {
+        var lag = new double[]{12.5};
+        var replicaConnection = mock(Connection.class);
+        var statement = mock(Statement.class);
+        var rs = mock(ResultSet.class);
+        when(replicaConnection.createStatement()).thenReturn(statement);
+        when(statement.executeQuery(anyString())).thenReturn(rs);
+        when(rs.next()).thenReturn(true);
+        when(rs.getDouble(1)).thenAnswer(i -> lag[0]);
+        var replica = new Replica("r1", dataSource(replicaConnection));
+        var routing = routing(replica);
+        readOnly();
+
+        routing.checkLag();
+        assertFalse(replica.healthy());
+        assertEquals(12_500, replica.lagMillis());
+        assertSame(primaryConnection, routing.getConnection());
+
+        lag[0] = 0.2;
+        routing.checkLag();
+        assertTrue(replica.healthy());
+        assertSame(replicaConnection, routing.getConnection());
+    }
+
+    @Test
+    void unreachableReplicaPoolFailsFastAndFallsBack() throws Exception {
+        // Puerto sin servidor: el pool arranca sin conectar y getConnection falla tras connection-timeout
+        var props = new ReadReplicaProperties.Replica("closed", "jdbc:postgresql://127.0.0.1:1/none", "u", "p");
+        try (var pool = ReadReplicaConfig.replicaPool(props, 2, Duration.ofMillis(500))) {
+            var replica = new Replica("closed", pool);
+            var routing = routing(replica);
+            readOnly();
+
+            long start = System.nanoTime();
+            assertSame(primaryConnection, routing.getConnection());
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            assertTrue(millis < 5_000, "la réplica caída debe fallar pronto, tardó " + millis + " ms");
+            assertFalse(replica.healthy());
+        }
+    }
+
+    // ===== helpers =====
+
+    private ReplicaRoutingDataSource routing(Replica... replicas) {
+        return new ReplicaRoutingDataSource(primary, List.of(replicas), Duration.ofSeconds(5));
+    }
+
+    private static void readOnly() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+    }
+
+    private static DataSource dataSource(Connection connection) {
+        var ds = mock(DataSource.class);
+        try {
+            when(ds.getConnection()).thenReturn(connection);
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+        return ds;
+    }
+}
@@ -0,0 +1,104 @@
+package com.site.security;
+
+import com.site.auth.user.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Del usuario al token y del token a las authorities: {@code roles} → {@code ROLE_*} con el
+ * umbral {@code app.jwt.admin-level}, y tokens sin el claim sin authorities.
+ */
+class JwtAuthoritiesTests {
+
+    private static final String SECRET = "dGVzdC1vbmx5LXNlY3JldC1mb3ItdGhlLWp3dC1hdXRob3JpdGllcy10ZXN0cw==";
+
+    private final NimbusJwtDecoder decoder = NimbusJwtDecoder
+            .withSecretKey(new SecretKeySpec(Base64.getDecoder().decode(SECRET), "HmacSHA256"))
+            .build();
+
+    @Test
+    void adminRoleStartsAtTheConfiguredLevel() {
+        var jwt = service(true, true, 100);
+        assertEquals(Set.of("ROLE_USER"), authorities(jwt.generate(user(0))));
+        assertEquals(Set.of("ROLE_USER"), authorities(jwt.generate(user(99))));
+        assertEquals(Set.of("ROLE_USER", "ROLE_ADMIN"), authorities(jwt.generate(user(100))));
+        assertEquals(Set.of("ROLE_USER", "ROLE_ADMIN"), authorities(jwt.generate(user(250))));
+
+        var lowThreshold = service(true, true, 5);
+        assertEquals(Set.of("ROLE_USER", "ROLE_ADMIN"), authorities(lowThreshold.generate(user(5))));
+        assertEquals(Set.of("ROLE_USER"), authorities(lowThreshold.generate(user(4))));
+    }
+
+    @Test
+    void claimsFollowTheConfiguration() {
+        var token = decoder.decode(service(true, true, 100).generate(user(100)));
+        assertEquals(7L, JwtUtils.getUid(token));
+        assertEquals(100L, ((Number) token.getClaim(JwtUtils.LEVEL)).longValue());
+        assertEquals(List.of("USER", "ADMIN"), token.getClaimAsStringList(JwtUtils.ROLES));
+        assertFalse(token.hasClaim("email_verified"), "solo se emiten tokens a usuarios verificados");
+
+        var bare = decoder.decode(service(false, false, 100).generate(user(100)));
+        assertEquals(7L, JwtUtils.getUid(bare));
+        assertFalse(bare.hasClaim(JwtUtils.LEVEL));
+        assertFalse(bare.hasClaim(JwtUtils.ROLES));
+    }
+
+    @Test
+    void tokensWithoutRolesGetNoAuthorities() {
+        // Sin el claim (desactivado o tokens como el del warmup): ni ROLE_USER, aunque el nivel sea alto
+        assertEquals(Set.of(), authorities(service(true, false, 100).generate(user(500))));
+        assertEquals(Set.of(), authorities(service(true, true, 100).generate("__warmup__", Map.of(JwtUtils.UID, 0L))));
+
+        var empty = decoder.decode(service(true, true, 100).generate("x", Map.of(JwtUtils.ROLES, List.of())));
+        assertTrue(SecurityConfig.authorities(empty).isEmpty());
+    }
+
+    @Test
+    void converterKeepsTheSubjectAndUsesTheRoles() {
+        var converter = new SecurityConfig("", SECRET).jwtAuthenticationConverter();
+        Jwt token = decoder.decode(service(true, true, 100).generate(user(100)));
+        var auth = converter.convert(token);
+        assertEquals("ana", auth.getName());
+        assertEquals(Set.of("ROLE_USER", "ROLE_ADMIN"), names(auth.getAuthorities()));
+        assertNull(token.getClaim("email_verified"));
+    }
+
+    // ===== helpers =====
+
+    private static JWTService service(boolean levelClaim, boolean rolesClaim, int adminLevel) {
+        return new JWTService(SECRET, 3600, "tests", levelClaim, rolesClaim, adminLevel);
+    }
+
+    private static User user(int level) {
+        var u = new User();
+        u.setId(7L);
+        u.setUsername("ana");
+        u.setEmail("ana@test.local");
+        u.setEnabled(true);
+        u.setLevel(level);
+        return u;
+    }
+
+    private Set<String> authorities(String token) {
+        return names(SecurityConfig.authorities(decoder.decode(token)));
+    }
+
+    private static Set<String> names(Collection<? extends GrantedAuthority> authorities) {
+        return authorities.stream().map(GrantedAuthority::getAuthority).collect(Collectors.toSet());
+    }
+}